@@ -0,0 +1,120 @@
+package problems.autocompletesystem;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per keystroke latency of {@link AutocompleteSystem#input(char)} over a large corpus.
+ * Sentences are a few words drawn from a small vocabulary, so short prefixes match a big share
+ * of the corpus, which is the worst case for ranking at query time. Every op is one keystroke
+ * of a query, queries are cut after a few characters and submitted with '#'.
+ * <p>
+ * Setup logs the heap taken by the system per sentence, the sentence strings themselves excluded.
+ */
+@Slf4j
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class AutocompleteBenchmark {
+    private static final int VOCABULARY_SIZE = 500;
+    private static final int QUERY_COUNT = 1_000;
+
+    @Param({"1000000"})
+    int sentenceCount;
+
+    AutocompleteSystem autocompleteSystem;
+    String[] queries;
+    int query;
+    int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Corpus corpus = corpus(random, sentenceCount);
+        String[] sentences = corpus.sentences();
+        long heapBefore = usedHeap();
+        autocompleteSystem = new AutocompleteSystem(sentences, corpus.times());
+        long heapAfter = usedHeap();
+        log.info("[{} sentences] heap bytes per sentence:{}", sentenceCount, (heapAfter - heapBefore) / sentenceCount);
+
+        // Typed prefixes of 1 to 4 chars of existing sentences, each followed by '#'
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < queries.length; i++) {
+            String sentence = sentences[random.nextInt(sentenceCount)];
+            queries[i] = sentence.substring(0, Math.min(sentence.length(), 1 + random.nextInt(4))) + '#';
+        }
+    }
+
+    @Benchmark
+    public List<String> keystroke() {
+        String currQuery = queries[query];
+        List<String> suggestions = autocompleteSystem.input(currQuery.charAt(position++));
+        if (position == currQuery.length()) {
+            position = 0;
+            query = (query + 1) % queries.length;
+        }
+        return suggestions;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // The corpus every autocomplete benchmark runs on: sentences of a few words out of a small
+    // vocabulary, each typed 1 to 100 times. Queries drawn from the same random afterwards follow on from it
+    static Corpus corpus(Random random, int sentenceCount) {
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        String[] sentences = new String[sentenceCount];
+        int[] times = new int[sentenceCount];
+        for (int i = 0; i < sentenceCount; i++) {
+            sentences[i] = randomSentence(random, vocabulary);
+            times[i] = 1 + random.nextInt(100);
+        }
+        return new Corpus(sentences, times);
+    }
+
+    record Corpus(String[] sentences, int[] times) {
+    }
+
+    private static String randomSentence(Random random, String[] vocabulary) {
+        StringBuilder sentence = new StringBuilder(vocabulary[random.nextInt(vocabulary.length)]);
+        for (int words = 1 + random.nextInt(3); words > 0; words--) {
+            sentence.append(' ').append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return sentence.toString();
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[3 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
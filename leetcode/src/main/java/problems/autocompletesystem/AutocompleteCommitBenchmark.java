@@ -0,0 +1,105 @@
+package problems.autocompletesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits competing with reads on one {@link AutocompleteIndex}, applied as they come
+ * ({@code commitDelayMillis} 0) or merged in batches. One thread commits sentences as fast as it
+ * can, drawn from a small hot set so batches have repeats to coalesce, while another types
+ * queries. Run once per mode: throughput gives commits per second, sample time the read latency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Group)
+public class AutocompleteCommitBenchmark {
+    private static final int QUERY_COUNT = 1_000;
+    private static final int HOT_SENTENCES = 1_000;
+
+    @Param({"1000000"})
+    int sentenceCount;
+
+    @Param({"0", "10"})
+    int commitDelayMillis;
+
+    AutocompleteIndex index;
+    String[] hotSentences;
+    String[] queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        AutocompleteBenchmark.Corpus corpus = AutocompleteBenchmark.corpus(random, sentenceCount);
+        String[] sentences = corpus.sentences();
+        index = new AutocompleteIndex(sentences, corpus.times(), Duration.ofMillis(commitDelayMillis));
+
+        hotSentences = new String[HOT_SENTENCES];
+        for (int i = 0; i < hotSentences.length; i++) {
+            hotSentences[i] = sentences[random.nextInt(sentenceCount)];
+        }
+        // Typed prefixes of 1 to 8 chars, without '#' so the reader does not commit
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < queries.length; i++) {
+            String sentence = sentences[random.nextInt(sentenceCount)];
+            queries[i] = sentence.substring(0, Math.min(sentence.length(), 1 + random.nextInt(8)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Typing {
+        AutocompleteSession session;
+        int query;
+        int position;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void commit() {
+        index.commit(hotSentences[ThreadLocalRandom.current().nextInt(HOT_SENTENCES)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<String> keystroke(Typing typing) {
+        if (typing.position == 0) {
+            // A fresh session per query, sessions are cheap
+            typing.session = index.newSession();
+        }
+        String currQuery = queries[typing.query];
+        List<String> suggestions = typing.session.input(currQuery.charAt(typing.position++));
+        if (typing.position == currQuery.length()) {
+            typing.position = 0;
+            typing.query = (typing.query + 1) % queries.length;
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,97 @@
+package problems.autocompletesystem;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per keystroke latency of typo-tolerant sessions on the corpus of {@link AutocompleteBenchmark}.
+ * Queries are prefixes of 3 to 10 chars of existing sentences with one char replaced past the first,
+ * each typed into a fresh session. {@code maxEdits} 0 is the exact session, which goes quiet at the
+ * typo. Teardown logs the share of keystrokes that got suggestions.
+ */
+@Slf4j
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class AutocompleteFuzzyBenchmark {
+    private static final int QUERY_COUNT = 1_000;
+    private static final Duration TIME_BUDGET = Duration.ofMillis(1);
+
+    @Param({"1000000"})
+    int sentenceCount;
+
+    @Param({"0", "1", "2"})
+    int maxEdits;
+
+    @Param({"100", "1000"})
+    int stepBudget;
+
+    AutocompleteIndex index;
+    String[] queries;
+    AutocompleteSession session;
+    int query;
+    int position;
+    long keystrokes;
+    long answered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        AutocompleteBenchmark.Corpus corpus = AutocompleteBenchmark.corpus(random, sentenceCount);
+        String[] sentences = corpus.sentences();
+        index = new AutocompleteIndex(sentences, corpus.times());
+
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < queries.length; i++) {
+            String sentence = sentences[random.nextInt(sentenceCount)];
+            char[] typed = sentence.substring(0, Math.min(sentence.length(), 3 + random.nextInt(8))).toCharArray();
+            int typo = 1 + random.nextInt(typed.length - 1);
+            typed[typo] = (char) ('a' + (typed[typo] - 'a' + 1 + random.nextInt(25)) % 26);
+            queries[i] = new String(typed);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.info("[maxEdits:{} stepBudget:{}] keystrokes with suggestions:{}%", maxEdits, stepBudget,
+                answered * 100 / Math.max(keystrokes, 1));
+    }
+
+    @Benchmark
+    public List<String> keystroke() {
+        if (position == 0) {
+            session = index.newSession(maxEdits, stepBudget, TIME_BUDGET);
+        }
+        String currQuery = queries[query];
+        List<String> suggestions = session.input(currQuery.charAt(position++));
+        if (position == currQuery.length()) {
+            position = 0;
+            query = (query + 1) % queries.length;
+        }
+        keystrokes++;
+        if (!suggestions.isEmpty()) {
+            answered++;
+        }
+        return suggestions;
+    }
+}
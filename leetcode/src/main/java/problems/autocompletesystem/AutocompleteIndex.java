@@ -0,0 +1,850 @@
+package problems.autocompletesystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Sentences and their frequencies shared by any number of {@link AutocompleteSession}s.
+ * <p>
+ * Suggestions never take a lock: they read the trie under an optimistic {@link StampedLock} stamp
+ * and start over if a commit overlapped. Commits take the write lock to count the use and walk
+ * down one trie path.
+ * Every trie array lives in one {@link Nodes} object replaced as a whole when it grows, so a read
+ * racing a commit may see stale values but never an id out of bounds, and gets thrown away anyway.
+ * <p>
+ * With a non-zero commit delay, commits are only queued and a background thread merges them every
+ * delay: repeats of a sentence are coalesced into one frequency bump and one trie walk, and the whole
+ * batch goes in under a single write lock, so sessions see the index move once per batch.
+ * Suggestions reflect a commit after at most about the delay, {@link #flush()} merges right away.
+ * <p>
+ * {@link #save(Path)} writes the trie arrays, sentences and frequencies as they are, and
+ * {@link #load(Path, Duration)} reads them back in bulk, so startup skips building the trie.
+ * Snapshot layout, little-endian: magic, version, TOP, node count, label chars count, sentence count,
+ * then chars, edgeStart, edgeLength, firstChild, nextSibling, top, topSize, frequencies,
+ * sentence lengths and sentence chars, every one as a plain array of the counted length.
+ * <p>
+ * Sessions can tolerate typos: when the input has fewer than TOP exact matches, sentences starting
+ * within a few edits of it fill in, found by {@link #suggestFuzzy} within a bounded number of trie steps.
+ */
+public class AutocompleteIndex implements AutoCloseable {
+    static final int TOP = 3;
+    private static final int SPINS_BEFORE_YIELD = 64;
+    private static final int SNAPSHOT_MAGIC = 0x41434958;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int IO_BUFFER_BYTES = 1 << 20;
+    private static final int DEADLINE_CHECK_STEPS = 64;
+
+    private final StampedLock lock = new StampedLock();
+    // Used under the lock only, frequencies are kept by index in Nodes
+    private final Map<String, Integer> sentenceIndexes;
+    private final Trie trie;
+    // Commits waiting for the next batch, unused without a commit delay
+    private final ConcurrentLinkedQueue<String> pendingCommits = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService commitExecutor;
+    // Used under the write lock only
+    private final Comparator<Integer> rankedComparator = this::compareRanks;
+
+    public AutocompleteIndex(String[] sentences, int[] times) {
+        this(sentences, times, Duration.ZERO);
+    }
+
+    // Duration.ZERO applies every commit before it returns
+    public AutocompleteIndex(String[] sentences, int[] times, Duration commitDelay) {
+        this(new Trie(), new HashMap<>(), commitDelay);
+        for (int i = 0; i < times.length; i++) {
+            insert(sentences[i], times[i]);
+        }
+    }
+
+    private AutocompleteIndex(Trie trie, Map<String, Integer> sentenceIndexes, Duration commitDelay) {
+        this.trie = trie;
+        this.sentenceIndexes = sentenceIndexes;
+        if (commitDelay.isZero()) {
+            this.commitExecutor = null;
+        } else {
+            this.commitExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "autocomplete-commits");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long delayNanos = commitDelay.toNanos();
+            commitExecutor.scheduleWithFixedDelay(this::flush, delayNanos, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public AutocompleteSession newSession() {
+        return new AutocompleteSession(this, 0, 0, Duration.ZERO);
+    }
+
+    // Session suggesting sentences that start within maxEdits of the input when exact matches run short,
+    // spending at most stepBudget trie chars and timeBudget on it per keystroke
+    public AutocompleteSession newSession(int maxEdits, int stepBudget, Duration timeBudget) {
+        if (maxEdits < 0 || stepBudget < 0) {
+            throw new IllegalArgumentException("Negative max edits " + maxEdits + " or step budget " + stepBudget);
+        }
+        return new AutocompleteSession(this, maxEdits, stepBudget, timeBudget);
+    }
+
+    // Counts one more use of the sentence, as typing it and '#' does
+    public void commit(String sentence) {
+        if (commitExecutor == null) {
+            insert(sentence, 1);
+        } else {
+            pendingCommits.add(sentence);
+            if (commitExecutor.isShutdown()) {
+                // Closed, possibly after its final flush
+                flush();
+            }
+        }
+    }
+
+    // Merges the queued commits into the index
+    public void flush() {
+        Map<String, Integer> commits = new HashMap<>();
+        for (String sentence = pendingCommits.poll(); sentence != null; sentence = pendingCommits.poll()) {
+            commits.merge(sentence, 1, Integer::sum);
+        }
+        if (commits.isEmpty()) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            commits.forEach((sentence, uses) -> count(sentence, uses, uses));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Merges queued commits and writes the index, commits wait meanwhile but suggestions don't.
+    // The snapshot is written aside and moved over the old one once on disk,
+    // so a crash or IO error midway leaves the previous snapshot intact
+    public void save(Path file) {
+        flush();
+        Path target = file.toAbsolutePath();
+        Path partial = null;
+        long stamp = lock.readLock();
+        try {
+            partial = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".partial");
+            try (FileChannel channel = FileChannel.open(partial, WRITE)) {
+                writeSnapshot(channel);
+                channel.force(true);
+            }
+            Files.move(partial, target, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            deletePartial(partial, e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void writeSnapshot(FileChannel channel) throws IOException {
+        Nodes nodes = trie.nodes;
+        int sentenceCount = trie.sentenceCount;
+        int[] lengths = new int[sentenceCount];
+        StringBuilder sentenceChars = new StringBuilder();
+        for (int i = 0; i < sentenceCount; i++) {
+            String sentence = nodes.sentences[i];
+            lengths[i] = sentence.length();
+            sentenceChars.append(sentence);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        writeInts(channel, buffer, new int[]{SNAPSHOT_MAGIC, SNAPSHOT_VERSION, TOP,
+                trie.nodeCount, trie.charsSize, sentenceCount}, 6);
+        writeChars(channel, buffer, nodes.chars, trie.charsSize);
+        writeInts(channel, buffer, nodes.edgeStart, trie.nodeCount);
+        writeInts(channel, buffer, nodes.edgeLength, trie.nodeCount);
+        writeInts(channel, buffer, nodes.firstChild, trie.nodeCount);
+        writeInts(channel, buffer, nodes.nextSibling, trie.nodeCount);
+        writeInts(channel, buffer, nodes.top, trie.nodeCount * TOP);
+        writeBytes(channel, buffer, nodes.topSize, trie.nodeCount);
+        writeInts(channel, buffer, nodes.freqs, sentenceCount);
+        writeInts(channel, buffer, lengths, sentenceCount);
+        char[] chars = new char[sentenceChars.length()];
+        sentenceChars.getChars(0, chars.length, chars, 0);
+        writeChars(channel, buffer, chars, chars.length);
+    }
+
+    private static void deletePartial(Path partial, IOException cause) {
+        if (partial == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(partial);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    public static AutocompleteIndex load(Path file) {
+        return load(file, Duration.ZERO);
+    }
+
+    // Only the sentence strings and their indexes are rebuilt, the arrays are used as read
+    public static AutocompleteIndex load(Path file, Duration commitDelay) {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int[] header = readInts(channel, buffer, 6, 6);
+            if (header[0] != SNAPSHOT_MAGIC || header[1] != SNAPSHOT_VERSION || header[2] != TOP) {
+                throw new IllegalArgumentException("Not an autocomplete snapshot of version " + SNAPSHOT_VERSION
+                        + " with top " + TOP + ": " + file);
+            }
+            int nodeCount = header[3];
+            int charsSize = header[4];
+            int sentenceCount = header[5];
+
+            // Room to grow the same way a built index would
+            int nodeCapacity = Math.max(nodeCount, 16);
+            int sentenceCapacity = Math.max(sentenceCount, 16);
+            char[] chars = readChars(channel, buffer, charsSize, Math.max(charsSize, 64));
+            int[] edgeStart = readInts(channel, buffer, nodeCount, nodeCapacity);
+            int[] edgeLength = readInts(channel, buffer, nodeCount, nodeCapacity);
+            int[] firstChild = readInts(channel, buffer, nodeCount, nodeCapacity);
+            int[] nextSibling = readInts(channel, buffer, nodeCount, nodeCapacity);
+            int[] top = readInts(channel, buffer, nodeCount * TOP, nodeCapacity * TOP);
+            byte[] topSize = readBytes(channel, buffer, nodeCount, nodeCapacity);
+            int[] freqs = readInts(channel, buffer, sentenceCount, sentenceCapacity);
+            int[] lengths = readInts(channel, buffer, sentenceCount, sentenceCount);
+            long sentenceCharsCount = 0;
+            for (int length : lengths) {
+                sentenceCharsCount += length;
+            }
+            char[] sentenceChars = readChars(channel, buffer, Math.toIntExact(sentenceCharsCount),
+                    Math.toIntExact(sentenceCharsCount));
+
+            String[] sentences = new String[sentenceCapacity];
+            Map<String, Integer> sentenceIndexes = new HashMap<>(sentenceCount * 4 / 3 + 1);
+            for (int i = 0, from = 0; i < sentenceCount; from += lengths[i], i++) {
+                sentences[i] = new String(sentenceChars, from, lengths[i]);
+                sentenceIndexes.put(sentences[i], i);
+            }
+
+            Nodes nodes = new Nodes(chars, edgeStart, edgeLength, firstChild, nextSibling, top, topSize,
+                    sentences, freqs);
+            return new AutocompleteIndex(new Trie(nodes, nodeCount, charsSize, sentenceCount), sentenceIndexes,
+                    commitDelay);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Stops the background merging and merges what is queued, later commits apply right away
+    @Override
+    public void close() {
+        if (commitExecutor != null) {
+            commitExecutor.shutdownNow();
+            flush();
+        }
+    }
+
+    // Suggestions for the whole input, the cursor remembers where the previous call ended
+    // so one more char is one step, unless a commit changed the trie in between
+    List<String> suggest(CharSequence input, Cursor cursor) {
+        while (true) {
+            long stamp = optimisticStamp();
+            Nodes nodes = trie.nodes;
+            int node = Trie.ROOT;
+            int offset = 0;
+            int from = 0;
+            if (cursor.stamp == stamp && cursor.length == input.length() - 1) {
+                node = cursor.node;
+                offset = cursor.offset;
+                from = cursor.length;
+            }
+            for (int i = from; i < input.length() && node != Trie.NONE; i++) {
+                char c = input.charAt(i);
+                if (offset < nodes.edgeLength[node]) {
+                    // Inside an edge there is only one way to go
+                    node = nodes.edgeChar(node, offset) == c ? node : Trie.NONE;
+                    offset++;
+                } else {
+                    node = nodes.child(node, c);
+                    offset = 1;
+                }
+            }
+            String[] result = node == Trie.NONE ? null : nodes.topSentences(node);
+
+            if (lock.validate(stamp)) {
+                cursor.node = node;
+                cursor.offset = offset;
+                cursor.length = input.length();
+                cursor.stamp = stamp;
+                return result == null ? List.of() : Arrays.asList(result);
+            }
+        }
+    }
+
+    // Up to TOP sentences starting within maxEdits of the input, fewest edits first then by rank.
+    // Exact matches are always in. Returns what it found so far once stepBudget trie chars are walked
+    // or the deadline passed, so a keystroke costs about the same however much of the corpus is near the input
+    List<String> suggestFuzzy(CharSequence input, int maxEdits, int stepBudget, long deadlineNanos) {
+        while (true) {
+            long stamp = optimisticStamp();
+            String[] result = new FuzzySearch(trie.nodes, input, maxEdits, stepBudget, deadlineNanos).run();
+            if (lock.validate(stamp)) {
+                return Arrays.asList(result);
+            }
+        }
+    }
+
+    // Stamp for an optimistic read, waiting out a commit that holds the write lock
+    private long optimisticStamp() {
+        for (int attempt = 1; ; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                return stamp;
+            }
+            // The commit is a single trie path, unless its thread got descheduled,
+            // in which case spinning on only delays it
+            if (attempt % SPINS_BEFORE_YIELD == 0) {
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void insert(String s, int newFreq) {
+        long stamp = lock.writeLock();
+        try {
+            count(s, newFreq, 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Under the write lock: a new sentence starts at newFreq, a known one gets uses more
+    private void count(String s, int newFreq, int uses) {
+        Integer sentenceIndex = sentenceIndexes.get(s);
+        if (sentenceIndex == null) {
+            sentenceIndex = trie.addSentence(s, newFreq);
+            sentenceIndexes.put(s, sentenceIndex);
+        } else {
+            trie.addUses(sentenceIndex, uses);
+        }
+        trie.add(s, sentenceIndex, rankedComparator);
+    }
+
+    private int compareRanks(int l, int r) {
+        Nodes nodes = trie.nodes;
+        if (nodes.freqs[l] != nodes.freqs[r]) {
+            return nodes.freqs[r] - nodes.freqs[l];
+        }
+        return nodes.sentences[l].compareTo(nodes.sentences[r]);
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int length)
+            throws IOException {
+        for (int from = 0; from < length; ) {
+            int n = Math.min(length - from, buffer.capacity() / Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, from, n);
+            buffer.limit(n * Integer.BYTES);
+            writeFully(channel, buffer);
+            from += n;
+        }
+    }
+
+    private static void writeChars(FileChannel channel, ByteBuffer buffer, char[] values, int length)
+            throws IOException {
+        for (int from = 0; from < length; ) {
+            int n = Math.min(length - from, buffer.capacity() / Character.BYTES);
+            buffer.clear();
+            buffer.asCharBuffer().put(values, from, n);
+            buffer.limit(n * Character.BYTES);
+            writeFully(channel, buffer);
+            from += n;
+        }
+    }
+
+    private static void writeBytes(FileChannel channel, ByteBuffer buffer, byte[] values, int length)
+            throws IOException {
+        for (int from = 0; from < length; ) {
+            int n = Math.min(length - from, buffer.capacity());
+            buffer.clear();
+            buffer.put(values, from, n);
+            buffer.flip();
+            writeFully(channel, buffer);
+            from += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Reads length values into an array of the given capacity
+    private static int[] readInts(FileChannel channel, ByteBuffer buffer, int length, int capacity)
+            throws IOException {
+        int[] values = new int[capacity];
+        for (int from = 0; from < length; ) {
+            int n = Math.min(length - from, buffer.capacity() / Integer.BYTES);
+            readFully(channel, buffer, n * Integer.BYTES);
+            buffer.asIntBuffer().get(values, from, n);
+            from += n;
+        }
+        return values;
+    }
+
+    private static char[] readChars(FileChannel channel, ByteBuffer buffer, int length, int capacity)
+            throws IOException {
+        char[] values = new char[capacity];
+        for (int from = 0; from < length; ) {
+            int n = Math.min(length - from, buffer.capacity() / Character.BYTES);
+            readFully(channel, buffer, n * Character.BYTES);
+            buffer.asCharBuffer().get(values, from, n);
+            from += n;
+        }
+        return values;
+    }
+
+    private static byte[] readBytes(FileChannel channel, ByteBuffer buffer, int length, int capacity)
+            throws IOException {
+        byte[] values = new byte[capacity];
+        for (int from = 0; from < length; ) {
+            int n = Math.min(length - from, buffer.capacity());
+            readFully(channel, buffer, n);
+            buffer.get(values, from, n);
+            from += n;
+        }
+        return values;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        buffer.clear();
+        buffer.limit(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    // Depth-first walk of the trie carrying the edit distance DP row of the path against the input,
+    // i.e. the Levenshtein automaton of the input run one trie char at a time: row[j] is the distance
+    // between the path and the first j input chars. Subtrees whose row can't get within maxEdits,
+    // or whose best sentence can't beat the worst one found, are skipped.
+    // Runs as an optimistic read, what it reads may be inconsistent until validated.
+    private class FuzzySearch {
+        private final Nodes nodes;
+        private final CharSequence input;
+        private final int maxEdits;
+        private final long deadlineNanos;
+        // DP row by path length, the row min exceeds maxEdits past input length + maxEdits
+        private final int[][] rows;
+        private int stepsLeft;
+        // Best sentences found so far, best first
+        private final int[] found = new int[TOP];
+        private final int[] foundEdits = new int[TOP];
+        private final int[] foundFreq = new int[TOP];
+        private int foundSize;
+
+        FuzzySearch(Nodes nodes, CharSequence input, int maxEdits, int stepBudget, long deadlineNanos) {
+            this.nodes = nodes;
+            this.input = input;
+            this.maxEdits = maxEdits;
+            this.deadlineNanos = deadlineNanos;
+            this.stepsLeft = stepBudget;
+            this.rows = new int[input.length() + maxEdits + 2][input.length() + 1];
+            for (int j = 0; j <= input.length(); j++) {
+                rows[0][j] = j;
+            }
+        }
+
+        String[] run() {
+            // Exact matches go in first and outside the budget, which then only limits what
+            // fills the slots they leave, so a typo-tolerant session never loses one
+            offerExact();
+            visitChildren(Trie.ROOT, 0);
+            String[] result = new String[foundSize];
+            for (int i = 0; i < foundSize; i++) {
+                result[i] = nodes.sentences[found[i]];
+            }
+            return result;
+        }
+
+        private void offerExact() {
+            int node = Trie.ROOT;
+            int offset = 0;
+            for (int i = 0; i < input.length() && node != Trie.NONE; i++) {
+                char c = input.charAt(i);
+                if (offset < nodes.edgeLength[node]) {
+                    node = nodes.edgeChar(node, offset) == c ? node : Trie.NONE;
+                    offset++;
+                } else {
+                    node = nodes.child(node, c);
+                    offset = 1;
+                }
+            }
+            if (node != Trie.NONE) {
+                for (int i = 0; i < nodes.topSize[node]; i++) {
+                    offer(nodes.top[node * TOP + i], 0);
+                }
+            }
+        }
+
+        // Returns false once out of budget
+        private boolean visitChildren(int node, int depth) {
+            for (int child = nodes.firstChild[node]; child != Trie.NONE; child = nodes.nextSibling[child]) {
+                if (!visit(child, depth)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean visit(int node, int depth) {
+            int length = nodes.edgeLength[node];
+            for (int offset = 0; offset < length; offset++) {
+                stepsLeft--;
+                if (stepsLeft < 0 || stepsLeft % DEADLINE_CHECK_STEPS == 0 && System.nanoTime() > deadlineNanos) {
+                    return false;
+                }
+                if (depth + 1 == rows.length) {
+                    return true;
+                }
+                int minEdits = step(rows[depth], rows[depth + 1], nodes.edgeChar(node, offset));
+                depth++;
+                if (minEdits > maxEdits || !canImprove(node, minEdits)) {
+                    return true;
+                }
+
+                int edits = rows[depth][input.length()];
+                if (edits <= maxEdits) {
+                    for (int i = 0; i < nodes.topSize[node]; i++) {
+                        offer(nodes.top[node * TOP + i], edits);
+                    }
+                    // Nothing below can match with fewer edits, and the node's top already
+                    // holds the best of what is below at this many
+                    if (edits == minEdits) {
+                        return true;
+                    }
+                }
+            }
+            return visitChildren(node, depth);
+        }
+
+        // Fills next from prev for one more path char, returns the min of next
+        private int step(int[] prev, int[] next, char c) {
+            next[0] = prev[0] + 1;
+            int min = next[0];
+            for (int j = 1; j < next.length; j++) {
+                int substitution = prev[j - 1] + (input.charAt(j - 1) == c ? 0 : 1);
+                next[j] = Math.min(substitution, Math.min(prev[j], next[j - 1]) + 1);
+                min = Math.min(min, next[j]);
+            }
+            return min;
+        }
+
+        // Whether the best sentence under the node, at the fewest edits the path allows,
+        // would make it into the found ones
+        private boolean canImprove(int node, int minEdits) {
+            if (foundSize < TOP || nodes.topSize[node] == 0) {
+                return true;
+            }
+            int worst = TOP - 1;
+            if (minEdits != foundEdits[worst]) {
+                return minEdits < foundEdits[worst];
+            }
+            return nodes.freqs[nodes.top[node * TOP]] >= foundFreq[worst];
+        }
+
+        private void offer(int sentenceIndex, int edits) {
+            if (nodes.sentences[sentenceIndex] == null) {
+                // Not fully added yet, the read is retried anyway
+                return;
+            }
+            int freq = nodes.freqs[sentenceIndex];
+            for (int i = 0; i < foundSize; i++) {
+                if (found[i] == sentenceIndex) {
+                    if (foundEdits[i] <= edits) {
+                        return;
+                    }
+                    // Found again with fewer edits, take it out and rank it anew
+                    foundSize--;
+                    System.arraycopy(found, i + 1, found, i, foundSize - i);
+                    System.arraycopy(foundEdits, i + 1, foundEdits, i, foundSize - i);
+                    System.arraycopy(foundFreq, i + 1, foundFreq, i, foundSize - i);
+                    break;
+                }
+            }
+
+            int pos = foundSize;
+            while (pos > 0 && compare(sentenceIndex, edits, freq, pos - 1) < 0) {
+                pos--;
+            }
+            if (pos == TOP) {
+                return;
+            }
+            int moved = Math.min(foundSize, TOP - 1) - pos;
+            System.arraycopy(found, pos, found, pos + 1, moved);
+            System.arraycopy(foundEdits, pos, foundEdits, pos + 1, moved);
+            System.arraycopy(foundFreq, pos, foundFreq, pos + 1, moved);
+            found[pos] = sentenceIndex;
+            foundEdits[pos] = edits;
+            foundFreq[pos] = freq;
+            foundSize = Math.min(foundSize + 1, TOP);
+        }
+
+        private int compare(int sentenceIndex, int edits, int freq, int i) {
+            // Sentences are there, offer() skips one that isn't yet
+            if (edits != foundEdits[i]) {
+                return edits - foundEdits[i];
+            }
+            if (freq != foundFreq[i]) {
+                return foundFreq[i] - freq;
+            }
+            return nodes.sentences[sentenceIndex].compareTo(nodes.sentences[found[i]]);
+        }
+    }
+
+    // Where a session's input ended in the trie, valid while the stamp is
+    static class Cursor {
+        private int node = Trie.ROOT;
+        // Chars of the node's edge matched by the input
+        private int offset;
+        private int length;
+        private long stamp;
+
+        void reset() {
+            node = Trie.ROOT;
+            offset = 0;
+            length = 0;
+            stamp = 0;
+        }
+    }
+
+    // The trie arrays and the sentences by index. Node i is reached through the edge labelled
+    // chars[edgeStart[i], edgeStart[i] + edgeLength[i]), children are chained through
+    // firstChild/nextSibling. Any id found in one of the arrays is in bounds for all of them.
+    private static final class Nodes {
+        private final char[] chars;
+        private final int[] edgeStart;
+        private final int[] edgeLength;
+        private final int[] firstChild;
+        private final int[] nextSibling;
+        // TOP slots per node: best ranked sentences below the node, best first
+        private final int[] top;
+        private final byte[] topSize;
+        private final String[] sentences;
+        private final int[] freqs;
+
+        Nodes(int nodeCapacity, int charCapacity, int sentenceCapacity) {
+            this(new char[charCapacity], new int[nodeCapacity], new int[nodeCapacity], new int[nodeCapacity],
+                    new int[nodeCapacity], new int[nodeCapacity * TOP], new byte[nodeCapacity],
+                    new String[sentenceCapacity], new int[sentenceCapacity]);
+        }
+
+        Nodes(char[] chars, int[] edgeStart, int[] edgeLength, int[] firstChild, int[] nextSibling,
+                      int[] top, byte[] topSize, String[] sentences, int[] freqs) {
+            this.chars = chars;
+            this.edgeStart = edgeStart;
+            this.edgeLength = edgeLength;
+            this.firstChild = firstChild;
+            this.nextSibling = nextSibling;
+            this.top = top;
+            this.topSize = topSize;
+            this.sentences = sentences;
+            this.freqs = freqs;
+        }
+
+        Nodes withCapacity(int nodeCapacity, int charCapacity, int sentenceCapacity) {
+            return new Nodes(Arrays.copyOf(chars, charCapacity), Arrays.copyOf(edgeStart, nodeCapacity),
+                    Arrays.copyOf(edgeLength, nodeCapacity), Arrays.copyOf(firstChild, nodeCapacity),
+                    Arrays.copyOf(nextSibling, nodeCapacity), Arrays.copyOf(top, nodeCapacity * TOP),
+                    Arrays.copyOf(topSize, nodeCapacity), Arrays.copyOf(sentences, sentenceCapacity),
+                    Arrays.copyOf(freqs, sentenceCapacity));
+        }
+
+        // Child of the node whose edge starts with c, NONE if there is none
+        int child(int node, char c) {
+            for (int child = firstChild[node]; child != Trie.NONE; child = nextSibling[child]) {
+                if (chars[edgeStart[child]] == c) {
+                    return child;
+                }
+            }
+            return Trie.NONE;
+        }
+
+        char edgeChar(int node, int offset) {
+            return chars[edgeStart[node] + offset];
+        }
+
+        // O(TOP) whatever the corpus size, the ranking is maintained by Trie.add()
+        String[] topSentences(int node) {
+            String[] result = new String[topSize[node]];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = sentences[top[node * TOP + i]];
+            }
+            return result;
+        }
+    }
+
+    // Radix tree of the sentences, written under the write lock only.
+    // A chain of single children collapses into one edge, and every position along an edge
+    // has the same sentences below it, so the node's top serves them all.
+    private static class Trie {
+        static final int ROOT = 0;
+        static final int NONE = -1;
+
+        private volatile Nodes nodes;
+        private int nodeCount;
+        private int charsSize;
+        private int sentenceCount;
+
+        Trie() {
+            this.nodes = new Nodes(16, 64, 16);
+            newNode(0, 0);
+        }
+
+        Trie(Nodes nodes, int nodeCount, int charsSize, int sentenceCount) {
+            this.nodes = nodes;
+            this.nodeCount = nodeCount;
+            this.charsSize = charsSize;
+            this.sentenceCount = sentenceCount;
+        }
+
+        int addSentence(String s, int freq) {
+            if (sentenceCount == nodes.sentences.length) {
+                grow(nodes.edgeStart.length, nodes.chars.length, sentenceCount * 2);
+            }
+            nodes.freqs[sentenceCount] = freq;
+            nodes.sentences[sentenceCount] = s;
+            return sentenceCount++;
+        }
+
+        void addUses(int sentenceIndex, int uses) {
+            nodes.freqs[sentenceIndex] += uses;
+        }
+
+        // Call after every frequency change of the sentence, ranking goes by the current frequencies
+        public void add(CharSequence s, int sentenceIndex, Comparator<Integer> ranking) {
+            int curr = ROOT;
+            int i = 0;
+            while (i < s.length()) {
+                int child = nodes.child(curr, s.charAt(i));
+                if (child == NONE) {
+                    child = newNode(appendChars(s, i), s.length() - i);
+                    Nodes n = nodes;
+                    n.nextSibling[child] = n.firstChild[curr];
+                    n.firstChild[curr] = child;
+                    offer(child, sentenceIndex, ranking);
+                    return;
+                }
+
+                Nodes n = nodes;
+                int matched = 1;
+                while (matched < n.edgeLength[child] && i + matched < s.length()
+                        && n.chars[n.edgeStart[child] + matched] == s.charAt(i + matched)) {
+                    matched++;
+                }
+                if (matched < n.edgeLength[child]) {
+                    split(child, matched);
+                }
+                offer(child, sentenceIndex, ranking);
+                curr = child;
+                i += matched;
+            }
+        }
+
+        // Cuts the node's edge after length chars, the rest of the edge and the children
+        // move to a new node below, which has the same sentences hence the same top
+        private void split(int node, int length) {
+            int lower = newNode(nodes.edgeStart[node] + length, nodes.edgeLength[node] - length);
+            Nodes n = nodes;
+            n.firstChild[lower] = n.firstChild[node];
+            System.arraycopy(n.top, node * TOP, n.top, lower * TOP, TOP);
+            n.topSize[lower] = n.topSize[node];
+            n.edgeLength[node] = length;
+            n.firstChild[node] = lower;
+        }
+
+        private int newNode(int start, int length) {
+            if (nodeCount == nodes.edgeStart.length) {
+                grow(nodeCount * 2, nodes.chars.length, nodes.sentences.length);
+            }
+            Nodes n = nodes;
+            n.edgeStart[nodeCount] = start;
+            n.edgeLength[nodeCount] = length;
+            n.firstChild[nodeCount] = NONE;
+            n.nextSibling[nodeCount] = NONE;
+            return nodeCount++;
+        }
+
+        // Appends s from the given index to the label buffer, returns where it starts
+        private int appendChars(CharSequence s, int from) {
+            int length = s.length() - from;
+            if (charsSize + length > nodes.chars.length) {
+                grow(nodes.edgeStart.length, Math.max(nodes.chars.length * 2, charsSize + length),
+                        nodes.sentences.length);
+            }
+            char[] chars = nodes.chars;
+            for (int i = 0; i < length; i++) {
+                chars[charsSize + i] = s.charAt(from + i);
+            }
+            int start = charsSize;
+            charsSize += length;
+            return start;
+        }
+
+        private void grow(int nodeCapacity, int charCapacity, int sentenceCapacity) {
+            nodes = nodes.withCapacity(nodeCapacity, charCapacity, sentenceCapacity);
+        }
+
+        // Frequencies only grow, so a sentence can only climb:
+        // re-rank it if it's cached already, otherwise it gets in by beating the last one
+        private void offer(int node, int sentenceIndex, Comparator<Integer> ranking) {
+            int[] top = nodes.top;
+            byte[] topSize = nodes.topSize;
+            int base = node * TOP;
+            int size = topSize[node];
+            int pos = 0;
+            while (pos < size && top[base + pos] != sentenceIndex) {
+                pos++;
+            }
+            if (pos == size) {
+                if (size < TOP) {
+                    topSize[node]++;
+                } else if (ranking.compare(sentenceIndex, top[base + TOP - 1]) < 0) {
+                    pos = TOP - 1;
+                } else {
+                    return;
+                }
+                top[base + pos] = sentenceIndex;
+            }
+
+            while (pos > 0 && ranking.compare(top[base + pos], top[base + pos - 1]) < 0) {
+                int tmp = top[base + pos];
+                top[base + pos] = top[base + pos - 1];
+                top[base + pos - 1] = tmp;
+                pos--;
+            }
+        }
+    }
+}
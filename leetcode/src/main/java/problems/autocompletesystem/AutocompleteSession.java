@@ -0,0 +1,46 @@
+package problems.autocompletesystem;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One user's typing over a shared {@link AutocompleteIndex}: the input so far and where it got to
+ * in the trie. Cheap enough to keep one per user. Not thread-safe itself, a session is typed into
+ * by one thread at a time while any number of sessions run concurrently.
+ * <p>
+ * With maxEdits above zero, a keystroke leaving fewer than TOP exact matches gets sentences starting
+ * within that many edits of the input instead, so one typo no longer ends the suggestions.
+ */
+public class AutocompleteSession {
+    private final AutocompleteIndex index;
+    private final AutocompleteIndex.Cursor cursor = new AutocompleteIndex.Cursor();
+    private final StringBuilder input = new StringBuilder();
+    private final int maxEdits;
+    private final int stepBudget;
+    private final long timeBudgetNanos;
+
+    AutocompleteSession(AutocompleteIndex index, int maxEdits, int stepBudget, Duration timeBudget) {
+        this.index = index;
+        this.maxEdits = maxEdits;
+        this.stepBudget = stepBudget;
+        this.timeBudgetNanos = timeBudget.toNanos();
+    }
+
+    public List<String> input(char c) {
+        if (c == '#') {
+            index.commit(input.toString());
+            input.setLength(0);
+            cursor.reset();
+            return List.of();
+        }
+
+        input.append(c);
+        List<String> suggestions = index.suggest(input, cursor);
+        // Every sentence starts within length edits of the input, allow fewer
+        int edits = Math.min(maxEdits, input.length() - 1);
+        if (suggestions.size() < AutocompleteIndex.TOP && edits > 0) {
+            return index.suggestFuzzy(input, edits, stepBudget, System.nanoTime() + timeBudgetNanos);
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,109 @@
+package problems.autocompletesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keystrokes per second through one shared {@link AutocompleteIndex} as threads are added.
+ * Every thread types into {@code sessionsPerThread} sessions in turn, one keystroke per op,
+ * on the corpus of {@link AutocompleteBenchmark}. Queries are prefixes of existing sentences
+ * followed by '#', so commits run concurrently with suggestions and keep moving the index.
+ * <p>
+ * Run via {@link #main(String[])} which sweeps over {@link #THREAD_COUNTS}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class AutocompleteSessionsBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final int QUERY_COUNT = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Index {
+        @Param({"1000000"})
+        int sentenceCount;
+
+        AutocompleteIndex index;
+        String[] sentences;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            AutocompleteBenchmark.Corpus corpus = AutocompleteBenchmark.corpus(new Random(42), sentenceCount);
+            sentences = corpus.sentences();
+            index = new AutocompleteIndex(sentences, corpus.times());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sessions {
+        @Param({"100"})
+        int sessionsPerThread;
+
+        AutocompleteSession[] sessions;
+        // Per session: the query it types and how far it got
+        String[][] queries;
+        int[] query;
+        int[] position;
+        int session;
+
+        @Setup(Level.Trial)
+        public void setUp(Index index, ThreadParams threadParams) {
+            Random random = new Random(threadParams.getThreadIndex());
+            sessions = new AutocompleteSession[sessionsPerThread];
+            queries = new String[sessionsPerThread][QUERY_COUNT];
+            query = new int[sessionsPerThread];
+            position = new int[sessionsPerThread];
+            for (int s = 0; s < sessionsPerThread; s++) {
+                sessions[s] = index.index.newSession();
+                for (int i = 0; i < QUERY_COUNT; i++) {
+                    String sentence = index.sentences[random.nextInt(index.sentences.length)];
+                    queries[s][i] = sentence.substring(0, Math.min(sentence.length(), 1 + random.nextInt(8))) + '#';
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> keystroke(Sessions sessions) {
+        int s = sessions.session;
+        sessions.session = s + 1 == sessions.sessionsPerThread ? 0 : s + 1;
+
+        String currQuery = sessions.queries[s][sessions.query[s]];
+        List<String> suggestions = sessions.sessions[s].input(currQuery.charAt(sessions.position[s]++));
+        if (sessions.position[s] == currQuery.length()) {
+            sessions.position[s] = 0;
+            sessions.query[s] = (sessions.query[s] + 1) % QUERY_COUNT;
+        }
+        return suggestions;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(AutocompleteSessionsBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
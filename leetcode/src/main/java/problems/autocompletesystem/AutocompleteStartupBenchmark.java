@@ -0,0 +1,61 @@
+package problems.autocompletesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to a ready {@link AutocompleteIndex}: built from the sentences and their counts,
+ * or loaded from a snapshot saved by a built one. Same corpus as {@link AutocompleteBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class AutocompleteStartupBenchmark {
+    @Param({"1000000"})
+    int sentenceCount;
+
+    @Param({"BUILD", "SNAPSHOT"})
+    String startup;
+
+    AutocompleteBenchmark.Corpus corpus;
+    Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = AutocompleteBenchmark.corpus(new Random(42), sentenceCount);
+        snapshot = Files.createTempFile("autocomplete", ".snapshot");
+        new AutocompleteIndex(corpus.sentences(), corpus.times()).save(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(snapshot);
+    }
+
+    @Benchmark
+    public AutocompleteIndex start() {
+        return startup.equals("BUILD")
+                ? new AutocompleteIndex(corpus.sentences(), corpus.times())
+                : AutocompleteIndex.load(snapshot);
+    }
+}
@@ -0,0 +1,175 @@
+package problems.concurrency;
+
+import lombok.Getter;
+import org.apache.commons.lang3.tuple.Pair;
+import problems.concurrency.RangeSequencer.IdGenerator;
+import problems.concurrency.RangeSequencer.IdRanges;
+import problems.concurrency.RangeSequencer.RangeAssigner;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free {@link IdGenerator} that allocates nothing per id, range rollovers included.
+ * <p>
+ * The current range is kept in two primitive fields instead of a {@code Pair} inside a fresh
+ * {@code RangeCounter}: {@code next} is the next id to hand out and {@code end} the exclusive end
+ * of the range. Ids are reserved by CAS on {@code next}. The thread that finds the range drained
+ * swaps {@code next} to {@link #CLOSED}, publishes the new {@code end} and reopens {@code next}
+ * at the new range start, meanwhile everybody else spins.
+ * <p>
+ * Readers load {@code next} before {@code end}. A stale pair can then only pass the
+ * {@code next < end} check if the CAS still finds the id at the head of the current range,
+ * which holds as long as the {@link RangeAssigner} hands out increasing ranges, as all of ours do.
+ */
+class GarbageFreeIdGenerator extends GarbageFreeRange implements IdGenerator {
+    // Ids are never negative, any other value would be a valid range position
+    private static final long CLOSED = Long.MAX_VALUE;
+    // Past this many spins waiters yield, the refill is likely stuck behind a preempted thread
+    private static final int SPIN_LIMIT = 128;
+
+    private static final VarHandle NEXT;
+    private static final VarHandle END;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NEXT = lookup.findVarHandle(GarbageFreeRange.class, "next", long.class);
+            END = lookup.findVarHandle(GarbageFreeRange.class, "end", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
+    private final String id;
+    private final RangeAssigner rangeAssigner;
+    // Refill buffer, only touched by the thread holding the range closed
+    private final long[] refill = new long[2];
+
+    @SuppressWarnings("unused")
+    private long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    GarbageFreeIdGenerator(String id, RangeAssigner rangeAssigner) {
+        this.id = id;
+        this.rangeAssigner = rangeAssigner;
+
+        rangeAssigner.nextRange(id, refill);
+        END.setRelease(this, refill[1]);
+        NEXT.setRelease(this, refill[0]);
+    }
+
+    @Override
+    public long generateId() {
+        int spins = 0;
+        while (true) {
+            long currNext = (long) NEXT.getAcquire(this);
+            if (currNext == CLOSED) {
+                spins = backOff(spins);
+                continue;
+            }
+
+            long currEnd = (long) END.getAcquire(this);
+            if (currNext < currEnd) {
+                if (NEXT.compareAndSet(this, currNext, currNext + 1)) {
+                    return currNext;
+                }
+                // Lost the race to another reservation, retry right away
+                continue;
+            }
+
+            // Range drained, whoever closes it fetches the next one
+            if (NEXT.compareAndSet(this, currNext, CLOSED)) {
+                return install(currNext, 1);
+            }
+        }
+    }
+
+    @Override
+    public long[] generateIds(int n) {
+        IdGenerator.checkBatchSize(n);
+        IdRanges ids = new IdRanges();
+        int spins = 0;
+        while (ids.length() < n) {
+            long currNext = (long) NEXT.getAcquire(this);
+            if (currNext == CLOSED) {
+                spins = backOff(spins);
+                continue;
+            }
+
+            long currEnd = (long) END.getAcquire(this);
+            if (currNext < currEnd) {
+                long taken = Math.min(n - ids.length(), currEnd - currNext);
+                if (NEXT.compareAndSet(this, currNext, currNext + taken)) {
+                    ids.add(currNext, taken);
+                }
+                continue;
+            }
+
+            if (NEXT.compareAndSet(this, currNext, CLOSED)) {
+                // Bulk path, the result array is garbage anyway
+                Pair<Long, Long> nextRange;
+                try {
+                    nextRange = rangeAssigner.nextRange(id, ids, n);
+                } catch (RuntimeException e) {
+                    NEXT.setRelease(this, currNext);
+                    throw e;
+                }
+                long rest = n - ids.length();
+                ids.add(nextRange.getLeft(), rest);
+                END.setRelease(this, nextRange.getRight());
+                NEXT.setRelease(this, nextRange.getLeft() + rest);
+            }
+        }
+        return ids.toArray();
+    }
+
+    @Override
+    public long unusedIds() {
+        long currNext = (long) NEXT.getAcquire(this);
+        return currNext == CLOSED ? 0 : Math.max(0, (long) END.getAcquire(this) - currNext);
+    }
+
+    @Override
+    public boolean isRefilling() {
+        long currNext = (long) NEXT.getAcquire(this);
+        return currNext == CLOSED || currNext >= (long) END.getAcquire(this);
+    }
+
+    // Called with the range closed, takes the first `taken` ids of the new range and reopens it
+    private long install(long drainedNext, long taken) {
+        try {
+            rangeAssigner.nextRange(id, refill);
+        } catch (RuntimeException e) {
+            // Reopen as drained so that the next caller retries the refill
+            NEXT.setRelease(this, drainedNext);
+            throw e;
+        }
+        long rangeStart = refill[0];
+        // Published before next, a reader that sees the new next sees the new end too
+        END.setRelease(this, refill[1]);
+        NEXT.setRelease(this, rangeStart + taken);
+        return rangeStart;
+    }
+
+    private static int backOff(int spins) {
+        if (spins < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return spins + 1;
+    }
+}
+
+// Keeps next and end off the cache lines of whatever is allocated right before the generator
+abstract class GarbageFreeRangePadding {
+    @SuppressWarnings("unused")
+    private long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class GarbageFreeRange extends GarbageFreeRangePadding {
+    // Only accessed through the VarHandles in GarbageFreeIdGenerator
+    long next;
+    long end;
+}
@@ -0,0 +1,250 @@
+package problems.concurrency;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import problems.concurrency.RangeSequencer.LoadBalancer;
+import problems.concurrency.RangeSequencer.RangeAssigner;
+import problems.concurrency.RangeSequencer.WorkerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.IntStream.range;
+
+/**
+ * Durable {@link RangeAssigner} on top of the {@code sequences} table from {@code ddl.sql}.
+ * <p>
+ * Ids are reserved from the database in blocks of several ranges, ranges are then handed out
+ * from the block in memory. A block is committed before any of its ids is used, so after a crash
+ * the unused remainder is skipped rather than reissued. Once the prefetch watermark share of a block
+ * is handed out the next one is allocated in the background, hence workers only wait for the
+ * database when a block doesn't last as long as allocating the next one, counted in {@link #stalls()}.
+ * A lower watermark or bigger blocks give the allocation more time, at the price of more ids
+ * skipped on a restart: the current block's remainder plus the prefetched block.
+ */
+@Slf4j
+class JdbcRangeAssigner implements RangeAssigner, AutoCloseable {
+    // Prefetch as soon as a block is in use, so that a whole block is consumed before a worker waits
+    private static final double PREFETCH_WATERMARK = 0.0;
+
+    private static final int RESTARTS = 3;
+    private static final int WORKERS_TOTAL = 3;
+    private static final int CLIENTS_TOTAL = 10;
+    private static final int CLIENT_TOTAL_CALLS = 20_000;
+    private static final long RANGE_SIZE = 5;
+    private static final int RANGES_PER_BLOCK = 20_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sequenceName;
+    private final long rangeSize;
+    private final long blockSize;
+    private final double prefetchWatermark;
+    private final ExecutorService prefetchExecutor;
+    private final AtomicReference<Block> block = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Block>> nextBlock = new AtomicReference<>();
+    private final LongAdder issuedIds = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+
+    JdbcRangeAssigner(JdbcTemplate jdbcTemplate, String sequenceName, long rangeSize, int rangesPerBlock,
+                      double prefetchWatermark) {
+        if (prefetchWatermark < 0 || prefetchWatermark >= 1) {
+            throw new IllegalArgumentException("Prefetch watermark must be in [0, 1), got " + prefetchWatermark);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceName = sequenceName;
+        this.rangeSize = rangeSize;
+        this.blockSize = rangeSize * rangesPerBlock;
+        this.prefetchWatermark = prefetchWatermark;
+        this.prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "range-prefetch-" + sequenceName);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        registerSequence();
+        this.block.set(allocateBlock());
+    }
+
+    @Override
+    public Pair<Long, Long> nextRange() {
+        while (true) {
+            Block currBlock = this.block.get();
+            long rangeStart = currBlock.next().getAndAdd(rangeSize);
+            if (rangeStart + rangeSize <= currBlock.end()) {
+                if (rangeStart >= currBlock.prefetchAt()) {
+                    prefetch();
+                }
+                issuedIds.add(rangeSize);
+                return Pair.of(rangeStart, rangeStart + rangeSize);
+            }
+
+            switchBlock(currBlock);
+        }
+    }
+
+    @Override
+    public long issuedIds() {
+        return issuedIds.sum();
+    }
+
+    // Times a worker had to wait for the database because prefetch didn't make it in time
+    public long stalls() {
+        return stalls.sum();
+    }
+
+    @Override
+    public void close() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    private void prefetch() {
+        if (nextBlock.get() != null) {
+            return;
+        }
+
+        // Publish the future before starting the query so that only one block is allocated
+        CompletableFuture<Block> future = new CompletableFuture<>();
+        if (nextBlock.compareAndSet(null, future)) {
+            prefetchExecutor.execute(() -> {
+                try {
+                    future.complete(allocateBlock());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private synchronized void switchBlock(Block exhausted) {
+        if (this.block.get() != exhausted) {
+            // Already switched by another worker
+            return;
+        }
+
+        // No-op unless the watermark was never crossed, e.g. single range blocks
+        prefetch();
+        CompletableFuture<Block> future = nextBlock.get();
+        if (!future.isDone()) {
+            stalls.increment();
+            log.warn("[{}] Block exhausted before prefetch finished", sequenceName);
+        }
+
+        try {
+            this.block.set(future.join());
+        } finally {
+            // On failure the next caller retries with a fresh query
+            nextBlock.set(null);
+        }
+    }
+
+    private void registerSequence() {
+        try {
+            jdbcTemplate.update("insert into sequences (name, next_value) values (?, 0)", sequenceName);
+        } catch (DuplicateKeyException e) {
+            log.debug("[{}] Sequence already exists", sequenceName);
+        }
+    }
+
+    private Block allocateBlock() {
+        while (true) {
+            long blockStart = jdbcTemplate.queryForObject(
+                    "select next_value from sequences where name = ?", Long.class, sequenceName);
+
+            // Compare-and-set on the row, concurrent nodes racing for the same block simply retry
+            int updated = jdbcTemplate.update(
+                    "update sequences set next_value = ? where name = ? and next_value = ?",
+                    blockStart + blockSize, sequenceName, blockStart);
+            if (updated == 1) {
+                log.info("[{}] Allocated block [{}, {})", sequenceName, blockStart, blockStart + blockSize);
+                return new Block(
+                        blockStart + blockSize,
+                        blockStart + (long) (blockSize * prefetchWatermark),
+                        new AtomicLong(blockStart));
+            }
+        }
+    }
+
+    private record Block(long end, long prefetchAt, AtomicLong next) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // In-memory stand-in for the MySQL database from application.yml. One shared connection
+        // like a warm pool would give, rather than a new connection per query
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:sandbox_db;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        new ResourceDatabasePopulator(new ClassPathResource("ddl.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Every run simulates an application restart on top of the same table
+        Set<Long> uniqueIds = new HashSet<>();
+        long previousRunMax = -1;
+        for (int run = 0; run < RESTARTS; run++) {
+            long[] generatedIds;
+            long stalls;
+            try (JdbcRangeAssigner assigner = new JdbcRangeAssigner(
+                    jdbcTemplate, "ids", RANGE_SIZE, RANGES_PER_BLOCK, PREFETCH_WATERMARK)) {
+                LoadBalancer lb = new LoadBalancer(
+                        new WorkerFactory(WorkerFactory.WorkerType.RRW_LOCK, assigner), WORKERS_TOTAL);
+                generatedIds = generate(lb);
+                stalls = assigner.stalls();
+            }
+
+            long duplicates = Arrays.stream(generatedIds).filter(id -> !uniqueIds.add(id)).count();
+            long runMin = Arrays.stream(generatedIds).min().orElseThrow();
+            long runMax = Arrays.stream(generatedIds).max().orElseThrow();
+            if (duplicates > 0) {
+                log.error("Run #{} found {} duplicate ids", run, duplicates);
+            } else if (runMin <= previousRunMax) {
+                log.error("Run #{} reissued ids, min:{} previous run max:{}", run, runMin, previousRunMax);
+            } else if (stalls > 0) {
+                // Workers waited on the database, prefetch didn't keep up
+                log.error("Run #{} had {} prefetch stalls, lower the watermark or grow the blocks", run, stalls);
+            } else {
+                log.info("Run #{} generated:{} ids in [{}, {}] without prefetch stalls",
+                        run, generatedIds.length, runMin, runMax);
+            }
+            previousRunMax = runMax;
+        }
+
+        log.info("Done");
+    }
+
+    private static long[] generate(LoadBalancer lb) throws InterruptedException {
+        ExecutorService clientPool = newFixedThreadPool(CLIENTS_TOTAL);
+        List<Future<long[]>> futures = range(0, CLIENTS_TOTAL)
+                .mapToObj(i -> clientPool.submit(() -> range(0, CLIENT_TOTAL_CALLS)
+                        .mapToLong(call -> lb.next().generateId())
+                        .toArray()))
+                .toList();
+
+        clientPool.shutdown();
+        clientPool.awaitTermination(10, TimeUnit.SECONDS);
+
+        return futures.stream()
+                .map(JdbcRangeAssigner::safeGet)
+                .flatMapToLong(Arrays::stream)
+                .toArray();
+    }
+
+    @SneakyThrows
+    private static <T> T safeGet(Future<T> future) {
+        return future.get();
+    }
+}
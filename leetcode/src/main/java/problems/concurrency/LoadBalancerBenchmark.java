@@ -0,0 +1,65 @@
+package problems.concurrency;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import problems.concurrency.RangeSequencer.InMemoryRangeAssigner;
+import problems.concurrency.RangeSequencer.LoadBalancer;
+import problems.concurrency.RangeSequencer.WorkerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link LoadBalancer.Strategy} choices in front of the same worker pool.
+ * Small ranges make refills frequent, which is where skipping refilling workers
+ * and picking the less loaded one should pay off; with large ranges the cost
+ * of the balancer itself dominates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class LoadBalancerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Balancer {
+        @Param({"ROUND_ROBIN", "THREAD_AFFINITY", "POWER_OF_TWO_CHOICES", "SKIP_REFILLING"})
+        String strategy;
+
+        @Param({"RRW_LOCK", "NON_BLOCKING"})
+        String workerType;
+
+        @Param({"5", "1000"})
+        long rangeSize;
+
+        @Param({"3"})
+        int poolSize;
+
+        LoadBalancer lb;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            lb = new LoadBalancer(
+                    new WorkerFactory(WorkerFactory.WorkerType.valueOf(workerType), new InMemoryRangeAssigner(rangeSize)),
+                    poolSize,
+                    LoadBalancer.Strategy.valueOf(strategy));
+        }
+    }
+
+    @Benchmark
+    public long generateId(Balancer balancer) {
+        return balancer.lb.next().generateId();
+    }
+}
@@ -0,0 +1,81 @@
+package problems.concurrency;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import problems.concurrency.RangeSequencer.InMemoryRangeAssigner;
+import problems.concurrency.RangeSequencer.NonBlockingIdGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how {@link NonBlockingIdGenerator} threads overshooting a range wait for the refill.
+ * Small ranges with more threads than cores are the interesting case: busy spinners
+ * steal CPU from the very thread that has to install the next range.
+ * <p>
+ * Besides latency percentiles each thread reports the CPU time it burnt per iteration,
+ * divide {@code cpuMicros} by the op count to compare strategies per id.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class NonBlockingWaitBenchmark {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    @State(Scope.Benchmark)
+    public static class Generator {
+        @Param({"BUSY_SPIN", "SPIN_THEN_PARK"})
+        String waitStrategy;
+
+        @Param({"1", "5", "100"})
+        long rangeSize;
+
+        NonBlockingIdGenerator idGenerator;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            idGenerator = new NonBlockingIdGenerator("W", new InMemoryRangeAssigner(rangeSize),
+                    NonBlockingIdGenerator.WaitStrategy.valueOf(waitStrategy));
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CpuTime {
+        public long cpuMicros;
+        private long startNanos;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            cpuMicros = 0;
+            startNanos = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            cpuMicros = (THREAD_MX_BEAN.getCurrentThreadCpuTime() - startNanos) / 1_000;
+        }
+    }
+
+    @Benchmark
+    public long generateId(Generator generator, CpuTime cpuTime) {
+        return generator.idGenerator.generateId();
+    }
+}
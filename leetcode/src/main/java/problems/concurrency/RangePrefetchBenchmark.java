@@ -0,0 +1,93 @@
+package problems.concurrency;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import problems.concurrency.RangeSequencer.InMemoryRangeAssigner;
+import problems.concurrency.RangeSequencer.LoadBalancer;
+import problems.concurrency.RangeSequencer.RangeAssigner;
+import problems.concurrency.RangeSequencer.WorkerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Refill stalls with and without range prefetch when the {@link RangeAssigner} is slow,
+ * e.g. backed by a database. With prefetch the tail percentiles should no longer
+ * carry the assigner latency.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RangePrefetchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Sequencer {
+        @Param({"RRW_LOCK", "NON_BLOCKING"})
+        String workerType;
+
+        @Param({"1.0", "0.5"})
+        double prefetchWatermark;
+
+        @Param({"0", "50"})
+        long assignerLatencyMicros;
+
+        @Param({"1000"})
+        long rangeSize;
+
+        LoadBalancer lb;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            RangeAssigner rangeAssigner = new SlowRangeAssigner(
+                    new InMemoryRangeAssigner(rangeSize), assignerLatencyMicros);
+            lb = new LoadBalancer(new WorkerFactory(
+                    WorkerFactory.WorkerType.valueOf(workerType), rangeAssigner, prefetchWatermark), 3);
+        }
+    }
+
+    @Benchmark
+    public long generateId(Sequencer sequencer) {
+        return sequencer.lb.next().generateId();
+    }
+
+    private record SlowRangeAssigner(RangeAssigner delegate, long latencyMicros) implements RangeAssigner {
+
+        @Override
+        public Pair<Long, Long> nextRange() {
+            stall();
+            return delegate.nextRange();
+        }
+
+        @Override
+        public Pair<Long, Long> nextRange(String workerId) {
+            stall();
+            return delegate.nextRange(workerId);
+        }
+
+        @Override
+        public long issuedIds() {
+            return delegate.issuedIds();
+        }
+
+        private void stall() {
+            if (latencyMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+            }
+        }
+    }
+}
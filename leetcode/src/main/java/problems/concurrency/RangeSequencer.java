@@ -6,18 +6,31 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
@@ -34,16 +47,29 @@ public class RangeSequencer {
     private static final int WORKERS_TOTAL = 3;
     private static final int CLIENTS_TOTAL = 10;
     private static final long RANGE_SIZE = 5;
+    // Values above 1 make clients reserve ids in bulk through generateIds(n)
+    private static final int CLIENT_BATCH_SIZE = 1;
+    // Share of a range used before the next one is fetched in background, 1.0 disables prefetch
+    private static final double PREFETCH_WATERMARK = 1.0;
+    // Size ranges per worker from its id rate, between 1 and ADAPTIVE_MAX_RANGE_SIZE
+    private static final boolean ADAPTIVE_RANGE_SIZE = false;
+    private static final long ADAPTIVE_MAX_RANGE_SIZE = RANGE_SIZE * 10;
 
     // Switch between worker type
     private static final WorkerFactory.WorkerType WORKER_TYPE = WorkerFactory.WorkerType.NON_BLOCKING;
+    // Switch between the ways clients are spread over workers
+    private static final LoadBalancer.Strategy BALANCING_STRATEGY = LoadBalancer.Strategy.ROUND_ROBIN;
 
     public static void main(String[] args) throws Exception {
-        LoadBalancer lb = new LoadBalancer(new WorkerFactory(WORKER_TYPE), WORKERS_TOTAL);
+        RecordingRangeAssigner rangeAssigner = new RecordingRangeAssigner(ADAPTIVE_RANGE_SIZE
+                ? new AdaptiveRangeAssigner(1, ADAPTIVE_MAX_RANGE_SIZE, Duration.ofMillis(1))
+                : new InMemoryRangeAssigner(RANGE_SIZE));
+        LoadBalancer lb = new LoadBalancer(
+                new WorkerFactory(WORKER_TYPE, rangeAssigner, PREFETCH_WATERMARK), WORKERS_TOTAL, BALANCING_STRATEGY);
         ExecutorService clientPool = newFixedThreadPool(CLIENTS_TOTAL);
 
         List<Future<List<Id>>> futures = range(0, CLIENTS_TOTAL)
-                .mapToObj(i -> clientPool.submit(new ClientTask(lb, CLIENT_TOTAL_CALLS, "C" + i)))
+                .mapToObj(i -> clientPool.submit(new ClientTask(lb, CLIENT_TOTAL_CALLS, CLIENT_BATCH_SIZE, "C" + i)))
                 .toList();
 
         clientPool.shutdown();
@@ -77,14 +103,35 @@ public class RangeSequencer {
             log.info("No duplicates found");
         }
 
+        if (WORKER_TYPE == WorkerFactory.WorkerType.SNOWFLAKE) {
+            checkTimeOrdered(futures);
+        } else {
+            checkRangesDepleted(generatedIds, rangeAssigner.getIssuedRanges());
+        }
+
+        log.info("Done");
+    }
+
+    private static void checkRangesDepleted(List<Id> generatedIds, NavigableMap<Long, Long> issuedRanges) {
         // Check #3: Reliability
         // Verify ranges are depleted evenly without holes
         // At any point in time we can have at most:
-        // (NUM_WORKERS - 1) * (RANGE_SIZE - 1)
-        // not filled ids
-        // Explanation: NUM_WORKERS:3, RANGE_SIZE:10, each worker generated 1 id:
+        // (RANGE_HOLDERS - 1) * (MAX_RANGE_SIZE - 1)
+        // not filled ids, where MAX_RANGE_SIZE is the largest range issued
+        // Explanation: RANGE_HOLDERS:3, MAX_RANGE_SIZE:10, each holder generated 1 id:
         // [ W1:0, W2:10, W3:20 ] -> 20 ids missing [1-9], [11-19]
-        final long maxAllowedMissingIdsCount = (WORKERS_TOTAL - 1) * (RANGE_SIZE - 1);
+        final long rangeHolders = switch (WORKER_TYPE) {
+            // A prefetched range is held in addition to the current one
+            case RRW_LOCK, NON_BLOCKING -> PREFETCH_WATERMARK < 1 ? 2L * WORKERS_TOTAL : WORKERS_TOTAL;
+            // Thread leases are carved out of a single range per worker
+            case GARBAGE_FREE, THREAD_LEASE -> WORKERS_TOTAL;
+            case SNOWFLAKE -> throw new IllegalStateException("Time based ids are not range based");
+        };
+        final long maxRangeSize = issuedRanges.entrySet().stream()
+                .mapToLong(range -> range.getValue() - range.getKey())
+                .max()
+                .orElse(0);
+        final long maxAllowedMissingIdsCount = (rangeHolders - 1) * (maxRangeSize - 1);
         long missingIdsCount = 0L;
         List<String> unfinishedRangesDescriptions = new ArrayList<>();
         for (int i = 0; i < generatedIds.size() - 1; i++) {
@@ -97,8 +144,9 @@ public class RangeSequencer {
             missingIdsCount += neighboringIdsDiff - 1;
 
             Id id = generatedIds.get(i);
-            long rangeStart = (id.value + 1) / RANGE_SIZE * RANGE_SIZE;
-            long rangeEnd = rangeStart + RANGE_SIZE;
+            Map.Entry<Long, Long> holeRange = issuedRanges.floorEntry(id.value + 1);
+            long rangeStart = holeRange.getKey();
+            long rangeEnd = holeRange.getValue();
             if (id.value >= rangeStart) {
                 // Unfinished range
                 unfinishedRangesDescriptions.add(format("%n[%s, %s], Last id:%s, Worker:%s",
@@ -115,8 +163,28 @@ public class RangeSequencer {
             log.info("Id ranges depleted evenly, unfinished:{}",
                     unfinishedRangesDescriptions);
         }
+    }
 
-        log.info("Done");
+    private static void checkTimeOrdered(List<Future<List<Id>>> futures) {
+        // Check #3: Ordering
+        // Time based ids leave gaps by design, there are no ranges to deplete.
+        // Instead every client must have got increasing ids from each worker it called,
+        // clock going backwards included
+        List<String> outOfOrderDescriptions = new ArrayList<>();
+        for (Future<List<Id>> future : futures) {
+            Map<String, Long> lastIdPerWorker = new HashMap<>();
+            for (Id id : safeGet(future)) {
+                Long lastId = lastIdPerWorker.put(id.worker, id.value);
+                if (lastId != null && lastId >= id.value) {
+                    outOfOrderDescriptions.add(format("%n%s after %s", id, lastId));
+                }
+            }
+        }
+        if (!outOfOrderDescriptions.isEmpty()) {
+            log.error("Found out of order ids:{}", outOfOrderDescriptions);
+        } else {
+            log.info("Ids increase per worker");
+        }
     }
 
     @SneakyThrows
@@ -124,64 +192,433 @@ public class RangeSequencer {
         return future.get();
     }
 
-    private static class LoadBalancer {
+    static class LoadBalancer {
         private final AtomicInteger next;
+        @Getter
         private final List<IdGenerator> pool;
+        private final Strategy strategy;
+        // Assigned round robin on the first call of every client thread
+        private final ThreadLocal<IdGenerator> affinity = ThreadLocal.withInitial(this::roundRobin);
 
         public LoadBalancer(WorkerFactory workerFactory, int poolSize) {
+            this(workerFactory, poolSize, Strategy.ROUND_ROBIN);
+        }
+
+        public LoadBalancer(WorkerFactory workerFactory, int poolSize, Strategy strategy) {
             this.next = new AtomicInteger();
+            this.strategy = strategy;
             this.pool = range(0, poolSize)
-                    .mapToObj(i -> workerFactory.createWorker())
+                    .mapToObj(i -> strategy == Strategy.POWER_OF_TWO_CHOICES
+                            ? new InFlightIdGenerator(workerFactory.createWorker())
+                            : workerFactory.createWorker())
                     .collect(toList());
         }
 
         public IdGenerator next() {
-            int next = this.next.getAndUpdate(index -> (index + 1) % pool.size());
-            return pool.get(next);
+            return switch (strategy) {
+                case ROUND_ROBIN -> roundRobin();
+                case THREAD_AFFINITY -> affinity.get();
+                case POWER_OF_TWO_CHOICES -> powerOfTwoChoices();
+                case SKIP_REFILLING -> skipRefilling();
+            };
         }
+
+        public long[] generateIds(int n) {
+            IdGenerator.checkBatchSize(n);
+            return next().generateIds(n);
+        }
+
+        private IdGenerator roundRobin() {
+            // A single atomic add, unlike getAndUpdate which retries its CAS under contention
+            return pool.get(Math.floorMod(next.getAndIncrement(), pool.size()));
+        }
+
+        private IdGenerator powerOfTwoChoices() {
+            if (pool.size() == 1) {
+                return pool.get(0);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(pool.size());
+            int second = (first + 1 + random.nextInt(pool.size() - 1)) % pool.size();
+            InFlightIdGenerator firstWorker = (InFlightIdGenerator) pool.get(first);
+            InFlightIdGenerator secondWorker = (InFlightIdGenerator) pool.get(second);
+            return firstWorker.inFlight() <= secondWorker.inFlight() ? firstWorker : secondWorker;
+        }
+
+        private IdGenerator skipRefilling() {
+            // Random start instead of the shared counter, so the scan itself isn't a contention point
+            int start = ThreadLocalRandom.current().nextInt(pool.size());
+            for (int i = 0; i < pool.size(); i++) {
+                IdGenerator worker = pool.get((start + i) % pool.size());
+                if (!worker.isRefilling()) {
+                    return worker;
+                }
+            }
+            // Everybody is refilling, wait wherever we started
+            return pool.get(start);
+        }
+
+        enum Strategy {ROUND_ROBIN, THREAD_AFFINITY, POWER_OF_TWO_CHOICES, SKIP_REFILLING}
     }
 
+    // Counts calls currently inside the worker, the load signal for power-of-two-choices
     @RequiredArgsConstructor
-    private static class WorkerFactory {
-        private static final RangeAssigner RANGE_ASSIGNER = new RangeAssigner(RANGE_SIZE);
+    static class InFlightIdGenerator implements IdGenerator {
+        private final IdGenerator delegate;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public long generateId() {
+            inFlight.incrementAndGet();
+            try {
+                return delegate.generateId();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public long[] generateIds(int n) {
+            inFlight.incrementAndGet();
+            try {
+                return delegate.generateIds(n);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public long unusedIds() {
+            return delegate.unusedIds();
+        }
+
+        @Override
+        public boolean isRefilling() {
+            return delegate.isRefilling();
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+    }
+
+    static class WorkerFactory {
         private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+        private static final double NO_PREFETCH = 1.0;
         private final WorkerType workerType;
+        private final RangeAssigner rangeAssigner;
+        private final double prefetchWatermark;
+        // SNOWFLAKE worker numbers of this node, [offset, offset + count). Nodes sharing
+        // the id space must be given disjoint blocks, a single node takes all of them by default
+        private final int snowflakeWorkerOffset;
+        private final int snowflakeWorkerCount;
+        // SNOWFLAKE workers made so far by this factory, each takes the next number of the block
+        private final AtomicInteger snowflakeWorkers = new AtomicInteger();
+
+        public WorkerFactory(WorkerType workerType, RangeAssigner rangeAssigner) {
+            this(workerType, rangeAssigner, NO_PREFETCH);
+        }
+
+        public WorkerFactory(WorkerType workerType, RangeAssigner rangeAssigner, double prefetchWatermark) {
+            this(workerType, rangeAssigner, prefetchWatermark, 0, SnowflakeIdGenerator.MAX_WORKERS);
+        }
+
+        public WorkerFactory(WorkerType workerType, RangeAssigner rangeAssigner, double prefetchWatermark,
+                             int snowflakeWorkerOffset, int snowflakeWorkerCount) {
+            if (snowflakeWorkerOffset < 0 || snowflakeWorkerCount <= 0
+                    || snowflakeWorkerOffset + snowflakeWorkerCount > SnowflakeIdGenerator.MAX_WORKERS) {
+                throw new IllegalArgumentException(format("Snowflake workers [%d, %d) out of [0, %d)",
+                        snowflakeWorkerOffset, snowflakeWorkerOffset + snowflakeWorkerCount,
+                        SnowflakeIdGenerator.MAX_WORKERS));
+            }
+            this.workerType = workerType;
+            this.rangeAssigner = rangeAssigner;
+            this.prefetchWatermark = prefetchWatermark;
+            this.snowflakeWorkerOffset = snowflakeWorkerOffset;
+            this.snowflakeWorkerCount = snowflakeWorkerCount;
+        }
 
         public IdGenerator createWorker() {
+            int workerNumber = INSTANCE_COUNTER.incrementAndGet();
+            String workerId = "W" + workerNumber;
             return switch (workerType) {
                 case RRW_LOCK -> new ReadWriteLockIdGenerator(
-                        "W" + INSTANCE_COUNTER.incrementAndGet(),
-                        RANGE_ASSIGNER);
+                        workerId,
+                        workerRangeAssigner(workerId));
 
                 case NON_BLOCKING -> new NonBlockingIdGenerator(
-                        "W" + INSTANCE_COUNTER.incrementAndGet(),
-                        RANGE_ASSIGNER);
+                        workerId,
+                        workerRangeAssigner(workerId));
+
+                case THREAD_LEASE -> new ThreadLeaseIdGenerator(
+                        workerId,
+                        rangeAssigner);
+
+                // No prefetch, its futures would be garbage on every refill
+                case GARBAGE_FREE -> new GarbageFreeIdGenerator(
+                        workerId,
+                        rangeAssigner);
+
+                // Needs no ranges at all, the range assigner is left unused
+                case SNOWFLAKE -> new SnowflakeIdGenerator(
+                        workerId,
+                        nextSnowflakeWorker());
             };
         }
 
-        public enum WorkerType {RRW_LOCK, NON_BLOCKING}
+        // Two workers sharing a number would hand out the same ids, so a used up block is an error
+        private int nextSnowflakeWorker() {
+            int local = snowflakeWorkers.getAndIncrement();
+            if (local >= snowflakeWorkerCount) {
+                throw new IllegalStateException(format("All %d Snowflake workers [%d, %d) are taken",
+                        snowflakeWorkerCount, snowflakeWorkerOffset, snowflakeWorkerOffset + snowflakeWorkerCount));
+            }
+            return snowflakeWorkerOffset + local;
+        }
+
+        // Prefetch buffers one range ahead per worker, so each worker gets its own
+        private RangeAssigner workerRangeAssigner(String workerId) {
+            return prefetchWatermark < NO_PREFETCH
+                    ? new PrefetchingRangeAssigner(rangeAssigner, prefetchWatermark, workerId)
+                    : rangeAssigner;
+        }
+
+        public enum WorkerType {RRW_LOCK, NON_BLOCKING, THREAD_LEASE, GARBAGE_FREE, SNOWFLAKE}
+    }
+
+    interface RangeAssigner {
+        Pair<Long, Long> nextRange();
+
+        // The hint lets an assigner size ranges after the consumption of the given worker
+        default Pair<Long, Long> nextRange(String workerId) {
+            return nextRange();
+        }
+
+        // Allocation free variant, writes [left, right) of the next range to range[0] and range[1]
+        default void nextRange(String workerId, long[] range) {
+            Pair<Long, Long> nextRange = nextRange(workerId);
+            range[0] = nextRange.getLeft();
+            range[1] = nextRange.getRight();
+        }
+
+        // Total amount of ids handed out to workers so far, used or not
+        long issuedIds();
+
+        // Progress report from the worker holding range, no-op unless ranges are buffered ahead
+        default void onIdGenerated(Pair<Long, Long> range, long id) {
+        }
+
+        // Appends whole ranges to ids while at least a full range is still missing,
+        // returns the range the rest of the ids (possibly none) should come from
+        default Pair<Long, Long> nextRange(String workerId, IdRanges ids, long needed) {
+            Pair<Long, Long> nextRange = nextRange(workerId);
+            while (needed - ids.length() >= nextRange.getRight() - nextRange.getLeft()) {
+                ids.add(nextRange.getLeft(), nextRange.getRight() - nextRange.getLeft());
+                nextRange = nextRange(workerId);
+            }
+            return nextRange;
+        }
     }
 
     @RequiredArgsConstructor
-    private static class RangeAssigner {
+    static class InMemoryRangeAssigner implements RangeAssigner {
         private final AtomicLong nextRangeStart = new AtomicLong();
         private final long rangeSize;
 
+        @Override
         @SneakyThrows
         public Pair<Long, Long> nextRange() {
             long rangeStart = nextRangeStart.getAndUpdate(curr -> curr + rangeSize);
             return Pair.of(rangeStart, rangeStart + rangeSize);
         }
+
+        @Override
+        public void nextRange(String workerId, long[] range) {
+            range[0] = nextRangeStart.getAndAdd(rangeSize);
+            range[1] = range[0] + rangeSize;
+        }
+
+        @Override
+        public long issuedIds() {
+            return nextRangeStart.get();
+        }
+    }
+
+    // Sizes every worker's next range to last about targetRefillInterval
+    // at the rate the worker drained its previous one
+    static class AdaptiveRangeAssigner implements RangeAssigner {
+        private final AtomicLong nextRangeStart = new AtomicLong();
+        private final Map<String, WorkerRate> workerRates = new ConcurrentHashMap<>();
+        private final long minRangeSize;
+        private final long maxRangeSize;
+        private final long targetRefillNanos;
+
+        public AdaptiveRangeAssigner(long minRangeSize, long maxRangeSize, Duration targetRefillInterval) {
+            this.minRangeSize = minRangeSize;
+            this.maxRangeSize = maxRangeSize;
+            this.targetRefillNanos = targetRefillInterval.toNanos();
+        }
+
+        @Override
+        public Pair<Long, Long> nextRange() {
+            return take(minRangeSize);
+        }
+
+        @Override
+        public Pair<Long, Long> nextRange(String workerId) {
+            return take(workerRate(workerId).nextRangeSize(System.nanoTime()));
+        }
+
+        @Override
+        public void nextRange(String workerId, long[] range) {
+            long rangeSize = workerRate(workerId).nextRangeSize(System.nanoTime());
+            range[0] = nextRangeStart.getAndAdd(rangeSize);
+            range[1] = range[0] + rangeSize;
+        }
+
+        @Override
+        public long issuedIds() {
+            return nextRangeStart.get();
+        }
+
+        private WorkerRate workerRate(String workerId) {
+            // Plain lookup first, the capturing lambda would be allocated on every call
+            WorkerRate workerRate = workerRates.get(workerId);
+            return workerRate != null ? workerRate : workerRates.computeIfAbsent(workerId, k -> new WorkerRate());
+        }
+
+        private Pair<Long, Long> take(long rangeSize) {
+            long rangeStart = nextRangeStart.getAndAdd(rangeSize);
+            return Pair.of(rangeStart, rangeStart + rangeSize);
+        }
+
+        private class WorkerRate {
+            private long lastRefillNanos;
+            private long lastRangeSize;
+
+            // Refills of a single worker hardly ever overlap, the lock is uncontended
+            synchronized long nextRangeSize(long nowNanos) {
+                long rangeSize = minRangeSize;
+                if (lastRefillNanos != 0) {
+                    long elapsedNanos = Math.max(1, nowNanos - lastRefillNanos);
+                    long wanted = (long) ((double) lastRangeSize * targetRefillNanos / elapsedNanos);
+                    // At most double or halve per refill so that a single burst or pause doesn't swing it
+                    rangeSize = Math.max(lastRangeSize / 2, Math.min(lastRangeSize * 2, wanted));
+                }
+                rangeSize = Math.max(minRangeSize, Math.min(maxRangeSize, rangeSize));
+
+                lastRefillNanos = nowNanos;
+                lastRangeSize = rangeSize;
+                return rangeSize;
+            }
+        }
+    }
+
+    // Remembers every issued range, used by the holes check in main
+    @RequiredArgsConstructor
+    private static class RecordingRangeAssigner implements RangeAssigner {
+        private final RangeAssigner delegate;
+        @Getter
+        private final NavigableMap<Long, Long> issuedRanges = new ConcurrentSkipListMap<>();
+
+        @Override
+        public Pair<Long, Long> nextRange() {
+            return record(delegate.nextRange());
+        }
+
+        @Override
+        public Pair<Long, Long> nextRange(String workerId) {
+            return record(delegate.nextRange(workerId));
+        }
+
+        @Override
+        public long issuedIds() {
+            return delegate.issuedIds();
+        }
+
+        private Pair<Long, Long> record(Pair<Long, Long> range) {
+            issuedRanges.put(range.getLeft(), range.getRight());
+            return range;
+        }
+    }
+
+    // Double buffer: once the watermark share of the current range is used,
+    // the next range is fetched in background and handed out on the following nextRange()
+    static class PrefetchingRangeAssigner implements RangeAssigner {
+        private static final Executor PREFETCH_EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "range-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final RangeAssigner delegate;
+        private final double watermark;
+        private final String workerId;
+        private final AtomicReference<CompletableFuture<Pair<Long, Long>>> prefetched = new AtomicReference<>();
+
+        public PrefetchingRangeAssigner(RangeAssigner delegate, double watermark, String workerId) {
+            this.delegate = delegate;
+            this.watermark = watermark;
+            this.workerId = workerId;
+        }
+
+        @Override
+        public Pair<Long, Long> nextRange() {
+            return nextRange(workerId);
+        }
+
+        @Override
+        public Pair<Long, Long> nextRange(String workerId) {
+            CompletableFuture<Pair<Long, Long>> nextRange = prefetched.getAndSet(null);
+            // Watermark not reached yet, e.g. a batch took the whole range at once
+            return nextRange == null ? delegate.nextRange(workerId) : nextRange.join();
+        }
+
+        @Override
+        public void onIdGenerated(Pair<Long, Long> range, long id) {
+            long left = range.getLeft();
+            if (id < left + (long) ((range.getRight() - left) * watermark) || prefetched.get() != null) {
+                return;
+            }
+
+            // Publish the future before fetching so that only one range is requested
+            CompletableFuture<Pair<Long, Long>> nextRange = new CompletableFuture<>();
+            if (prefetched.compareAndSet(null, nextRange)) {
+                PREFETCH_EXECUTOR.execute(() -> {
+                    try {
+                        nextRange.complete(delegate.nextRange(workerId));
+                    } catch (RuntimeException e) {
+                        nextRange.completeExceptionally(e);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public long issuedIds() {
+            return delegate.issuedIds();
+        }
     }
 
     @RequiredArgsConstructor
     private static class ClientTask implements Callable<List<Id>> {
         private final LoadBalancer lb;
         private final long totalCalls;
+        private final int batchSize;
         private final String id;
 
         @Override
         public List<Id> call() {
+            if (batchSize > 1) {
+                return callBatched();
+            }
+
             return range(0, totalCalls)
                     .mapToObj(i -> {
                         IdGenerator idGenerator = lb.next();
@@ -192,6 +629,21 @@ public class RangeSequencer {
                     })
                     .collect(toList());
         }
+
+        private List<Id> callBatched() {
+            List<Id> generatedIds = new ArrayList<>();
+            while (generatedIds.size() < totalCalls) {
+                IdGenerator idGenerator = lb.next();
+                int n = (int) Math.min(batchSize, totalCalls - generatedIds.size());
+                long[] ranges = idGenerator.generateIds(n);
+                for (int i = 0; i < ranges.length; i += 2) {
+                    for (long value = ranges[i]; value < ranges[i] + ranges[i + 1]; value++) {
+                        generatedIds.add(new Id(value, id, idGenerator.getId()));
+                    }
+                }
+            }
+            return generatedIds;
+        }
     }
 
     private record Id(long value, String client, String worker) {
@@ -206,9 +658,66 @@ public class RangeSequencer {
 
         long generateId();
 
+        // Reserves n ids at once, returned as [start, length] pairs flattened into one array:
+        // {start0, length0, start1, length1, ...}, more than one pair only when crossing ranges
+        long[] generateIds(int n);
+
+        // A negative n would move the shared counters backwards and hand out ids twice
+        static void checkBatchSize(int n) {
+            if (n <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive, got " + n);
+            }
+        }
+
+        // Ids left in the range(s) currently held by the generator,
+        // exact only when no generateId() calls are in flight
+        long unusedIds();
+
+        // True while calls queue up behind a range refill
+        default boolean isRefilling() {
+            return false;
+        }
     }
 
-    private record RangeCounter(Pair<Long, Long> range, AtomicLong counter) {
+    // Accumulates [start, length] pairs, merging ones that turn out to be adjacent
+    static class IdRanges {
+        private long[] ranges = new long[4];
+        private int size;
+        private long length;
+
+        public IdRanges add(long start, long count) {
+            if (count == 0) {
+                return this;
+            }
+            if (size > 0 && ranges[size - 2] + ranges[size - 1] == start) {
+                ranges[size - 1] += count;
+            } else {
+                if (size == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, size * 2);
+                }
+                ranges[size++] = start;
+                ranges[size++] = count;
+            }
+            length += count;
+            return this;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(ranges, size);
+        }
+    }
+
+    record RangeCounter(Pair<Long, Long> range, AtomicLong counter, AtomicReference<Waiter> waiters) {
+        // Closes the waiters stack once the counter got replaced
+        private static final Waiter REPLACED = new Waiter(null, null);
+
+        RangeCounter(Pair<Long, Long> range, AtomicLong counter) {
+            this(range, counter, new AtomicReference<>());
+        }
 
         public long nextId() {
             return counter.getAndIncrement();
@@ -221,10 +730,42 @@ public class RangeSequencer {
         public boolean isRangeEnd(long id) {
             return id == range.getRight();
         }
+
+        public long unused() {
+            return Math.max(0, range.getRight() - counter.get());
+        }
+
+        // Parks the calling thread until markReplaced() is called, returns at once if it already was.
+        // Waiters are kept per counter: a wake-up can't be taken by a thread waiting for a later range
+        public void awaitReplaced(Object blocker) {
+            Waiter head;
+            Waiter node;
+            do {
+                head = waiters.get();
+                if (head == REPLACED) {
+                    return;
+                }
+                node = new Waiter(Thread.currentThread(), head);
+            } while (!waiters.compareAndSet(head, node));
+
+            // Loop guards against spurious wake-ups and permits left over from earlier waits
+            while (waiters.get() != REPLACED) {
+                LockSupport.park(blocker);
+            }
+        }
+
+        public void markReplaced() {
+            for (Waiter waiter = waiters.getAndSet(REPLACED); waiter != null; waiter = waiter.next()) {
+                LockSupport.unpark(waiter.thread());
+            }
+        }
+
+        private record Waiter(Thread thread, Waiter next) {
+        }
     }
 
     @Slf4j
-    private static class ReadWriteLockIdGenerator implements IdGenerator {
+    static class ReadWriteLockIdGenerator implements IdGenerator {
         @Getter
         private final String id;
         private final RangeAssigner rangeAssigner;
@@ -240,7 +781,7 @@ public class RangeSequencer {
         public ReadWriteLockIdGenerator(String id, RangeAssigner rangeAssigner) {
             this.id = id;
             this.rangeAssigner = rangeAssigner;
-            this.range = rangeAssigner.nextRange();
+            this.range = rangeAssigner.nextRange(id);
             this.next = new AtomicLong(this.range.getLeft());
         }
 
@@ -253,6 +794,7 @@ public class RangeSequencer {
                 // it would've interleaved with the write lock logic
                 long nextId = this.next.getAndIncrement();
                 if (isWithingRange(nextId)) {
+                    rangeAssigner.onIdGenerated(this.range, nextId);
                     return nextId;
                 }
             } finally {
@@ -273,20 +815,75 @@ public class RangeSequencer {
                     // Safely return current counter value since we're inside the WriteLock
                     // e.g. readers couldn't have updated its value
                     // as all of them are blocked waiting to get access to the counter
-                    log.info("[{}] Aborted range update due to the race condition nextId:{}", id, nextId);
+                    log.debug("[{}] Aborted range update due to the race condition nextId:{}", id, nextId);
                     return nextId;
                 }
 
-                this.range = rangeAssigner.nextRange();
+                this.range = rangeAssigner.nextRange(id);
                 this.next.set(this.range.getLeft());
 
                 nextId = this.next.getAndIncrement();
-                log.info("[{}] Assigned new range [{}], nextId:{}", this.id, this.range, nextId);
+                log.debug("[{}] Assigned new range [{}], nextId:{}", this.id, this.range, nextId);
                 return nextId;
             } finally {
                 writeLock.unlock();
             }
         }
+
+        @Override
+        public long[] generateIds(int n) {
+            IdGenerator.checkBatchSize(n);
+            IdRanges ids = new IdRanges();
+            try {
+                readLock.lock();
+                long start = this.next.getAndAdd(n);
+                Pair<Long, Long> currRange = this.range;
+                if (start + n <= currRange.getRight()) {
+                    rangeAssigner.onIdGenerated(currRange, start + n - 1);
+                    return ids.add(start, n).toArray();
+                }
+                // Reservation crossed the range end, whatever is below it is still ours
+                if (start < currRange.getRight()) {
+                    ids.add(start, currRange.getRight() - start);
+                }
+            } finally {
+                readLock.unlock();
+            }
+
+            try {
+                writeLock.lock();
+                // The range might have been replaced while we waited for the lock,
+                // so the current one could still have some room
+                long next = this.next.get();
+                if (isWithingRange(next)) {
+                    long taken = Math.min(n - ids.length(), this.range.getRight() - next);
+                    ids.add(next, taken);
+                    this.next.set(next + taken);
+                }
+                if (ids.length() < n) {
+                    this.range = rangeAssigner.nextRange(id, ids, n);
+                    long rest = n - ids.length();
+                    ids.add(this.range.getLeft(), rest);
+                    this.next.set(this.range.getLeft() + rest);
+                    log.debug("[{}] Assigned new range [{}] for {} ids", this.id, this.range, n);
+                }
+                return ids.toArray();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public long unusedIds() {
+            Pair<Long, Long> currRange = this.range;
+            return Math.max(0, currRange.getRight() - this.next.get());
+        }
+
+        @Override
+        public boolean isRefilling() {
+            return rwLock.isWriteLocked();
+        }
+
         private boolean isWithingRange(long value) {
             // atomic read of the current range
             // otherwise we could get inconsistent range in the following condition
@@ -297,58 +894,335 @@ public class RangeSequencer {
         }
 
     }
-    private static class NonBlockingIdGenerator implements IdGenerator {
+    static class NonBlockingIdGenerator implements IdGenerator {
+        // Spins before parking, a range refill is normally a matter of a few hundred nanos
+        private static final int SPIN_LIMIT = 128;
+
         @Getter
         private final String id;
         private final RangeAssigner rangeAssigner;
+        private final WaitStrategy waitStrategy;
 
         private final AtomicReference<RangeCounter> rangeCounter;
 
         public NonBlockingIdGenerator(String id, RangeAssigner rangeAssigner) {
+            this(id, rangeAssigner, WaitStrategy.SPIN_THEN_PARK);
+        }
+
+        public NonBlockingIdGenerator(String id, RangeAssigner rangeAssigner, WaitStrategy waitStrategy) {
             this.id = id;
             this.rangeAssigner = rangeAssigner;
+            this.waitStrategy = waitStrategy;
 
-            Pair<Long, Long> startRange = rangeAssigner.nextRange();
+            Pair<Long, Long> startRange = rangeAssigner.nextRange(id);
             this.rangeCounter = new AtomicReference<>(
                     new RangeCounter(startRange, new AtomicLong(startRange.getLeft())));
         }
+
         @Override
         public long generateId() {
-            // Case 1: Increment within the range
-            // Non-blocking, fastest
-            RangeCounter currState = this.rangeCounter.get();
-            long nextId = currState.nextId();
-            if (currState.isWithin(nextId)) {
-                log.info("[{}] WITHIN [{}]: {}", id, currState.range, nextId);
-                return nextId;
+            while (true) {
+                // Case 1: Increment within the range
+                // Non-blocking, fastest
+                RangeCounter currState = this.rangeCounter.get();
+                long nextId = currState.nextId();
+                if (currState.isWithin(nextId)) {
+                    log.debug("[{}] WITHIN [{}]: {}", id, currState.range, nextId);
+                    rangeAssigner.onIdGenerated(currState.range, nextId);
+                    return nextId;
+                }
+
+                // Case 2: Increment to range end
+                // A thread who observed given condition is the only allowed to assign a new range
+                if (currState.isRangeEnd(nextId)) {
+                    Pair<Long, Long> nextRange;
+                    try {
+                        nextRange = this.rangeAssigner.nextRange(id);
+                    } catch (RuntimeException e) {
+                        reopen(currState, nextId);
+                        throw e;
+                    }
+                    install(currState, new RangeCounter(
+                            nextRange,
+                            new AtomicLong(nextRange.getLeft() + 1)));
+
+                    nextId = nextRange.getLeft();
+                    log.debug("[{}] UPD [{}]: {}", id, nextRange, nextId);
+                    return nextId;
+                }
+
+                // Case 3: Increment above the range
+                // Wait for the new range without touching the counter, then start over.
+                // Starting over matters: this thread might be the one to hit the end of the new range
+                log.debug("[{}] ABOVE [{}]: {}", id, currState.range, nextId);
+                awaitReplaced(currState);
             }
+        }
 
-            // Case 2: Increment to range end
-            // A thread who observed given condition is the only allowed to assign a new range
-            if (currState.isRangeEnd(nextId)) {
-                Pair<Long, Long> nextRange = this.rangeAssigner.nextRange();
+        @Override
+        public long[] generateIds(int n) {
+            IdGenerator.checkBatchSize(n);
+            while (true) {
+                // Case 1: Whole reservation within the range
+                RangeCounter currState = this.rangeCounter.get();
+                long start = currState.counter().getAndAdd(n);
+                long rangeEnd = currState.range().getRight();
+                if (start + n <= rangeEnd) {
+                    rangeAssigner.onIdGenerated(currState.range(), start + n - 1);
+                    return new IdRanges().add(start, n).toArray();
+                }
 
-                this.rangeCounter.set(new RangeCounter(
-                        nextRange,
-                        new AtomicLong(nextRange.getLeft() + 1)));
+                // Case 2: Reservation covers the range end
+                // Same as for a single id, exactly one thread can observe it and assign a new range
+                if (start <= rangeEnd) {
+                    IdRanges ids = new IdRanges();
+                    if (start < rangeEnd) {
+                        ids.add(start, rangeEnd - start);
+                    }
+                    Pair<Long, Long> nextRange;
+                    try {
+                        nextRange = this.rangeAssigner.nextRange(id, ids, n);
+                    } catch (RuntimeException e) {
+                        // Nothing is handed out, the tail of the range included
+                        reopen(currState, start);
+                        throw e;
+                    }
+                    long rest = n - ids.length();
+                    ids.add(nextRange.getLeft(), rest);
+                    install(currState, new RangeCounter(
+                            nextRange,
+                            new AtomicLong(nextRange.getLeft() + rest)));
+                    log.debug("[{}] UPD [{}] for {} ids", id, nextRange, n);
+                    return ids.toArray();
+                }
 
-                nextId = nextRange.getLeft();
-                log.info("[{}] UPD [{}]: {}", id, nextRange, nextId);
-                return nextId;
+                // Case 3: Reservation above the range
+                // Nothing was taken, wait for the new range and start over
+                awaitReplaced(currState);
+            }
+        }
+
+        @Override
+        public long unusedIds() {
+            return this.rangeCounter.get().unused();
+        }
+
+        @Override
+        public boolean isRefilling() {
+            // Range drained, the thread that hit its end is fetching the next one
+            return this.rangeCounter.get().unused() == 0;
+        }
+
+        private void install(RangeCounter currState, RangeCounter nextState) {
+            this.rangeCounter.set(nextState);
+            currState.markReplaced();
+        }
+
+        // The refill failed: replace the drained counter with one at the first id not handed out,
+        // so that the next caller to reach the range end retries the refill, and wake the waiters
+        private void reopen(RangeCounter currState, long next) {
+            install(currState, new RangeCounter(currState.range(), new AtomicLong(next)));
+        }
+
+        private void awaitReplaced(RangeCounter staleState) {
+            for (int spins = 0; spins < SPIN_LIMIT || waitStrategy == WaitStrategy.BUSY_SPIN; spins++) {
+                if (this.rangeCounter.get() != staleState) {
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+
+            staleState.awaitReplaced(this);
+        }
+
+        enum WaitStrategy {BUSY_SPIN, SPIN_THEN_PARK}
+    }
+
+    /**
+     * Worker whose calling threads take ids from leases of their own, carved out of the worker's
+     * current range. A lease is one {@link AtomicLong} touched by its owner only, so ids come
+     * without a cache line bouncing between cores, the worker's lock is taken once per lease.
+     * <p>
+     * Taking an id is still an atomic add, uncontended but not a plain increment: a thief may cut
+     * the lease short at any time, and only an atomic on both sides keeps the two from handing out
+     * the same id. Without stealing, ids left on idle threads would outlive the range, see below.
+     * On one CPU this is on par with {@link NonBlockingIdGenerator} at best, it is meant to pay off
+     * once many cores share a worker.
+     * <p>
+     * A thread finding its lease and the range exhausted steals half of the fullest other lease,
+     * all of it if the owner died, and only once no lease has ids left a new range is taken.
+     * Every unused id therefore sits in the current range, the same bound as for one holder per worker.
+     * Leases of dead threads are dropped once empty, idle threads just get theirs stolen.
+     */
+    @Slf4j
+    static class ThreadLeaseIdGenerator implements IdGenerator {
+        // Leases a range is cut into, more means less unused ids stranded on idle threads
+        private static final int LEASES_PER_RANGE = 8;
+        // Lease at least this many ids, or the whole range when smaller, so that small
+        // ranges don't send every id through the lock
+        private static final long MIN_LEASE_SIZE = 64;
+
+        @Getter
+        private final String id;
+        private final RangeAssigner rangeAssigner;
+        private final ThreadLocal<Lease> threadLease = ThreadLocal.withInitial(() -> new Lease(null, 0, 0));
+
+        // Guarded by this
+        private final List<Lease> leases = new ArrayList<>();
+        private long rangeNext;
+        private long rangeEnd;
+        private long leaseSize;
+
+        public ThreadLeaseIdGenerator(String id, RangeAssigner rangeAssigner) {
+            this.id = id;
+            this.rangeAssigner = rangeAssigner;
+        }
+
+        @Override
+        public long generateId() {
+            Lease lease = threadLease.get();
+            while (true) {
+                // Uncontended unless another thread is stealing from this very lease
+                long state = lease.state.getAndAdd(Lease.ONE_TAKEN);
+                if (Lease.next(state) < Lease.end(state)) {
+                    return lease.base + Lease.next(state);
+                }
+                lease = refill(null, 1);
+            }
+        }
+
+        @Override
+        public long[] generateIds(int n) {
+            IdGenerator.checkBatchSize(n);
+            IdRanges ids = new IdRanges();
+            Lease lease = threadLease.get();
+            while (true) {
+                lease.take(ids, n - ids.length());
+                if (ids.length() == n) {
+                    return ids.toArray();
+                }
+                lease = refill(ids, n);
             }
+        }
+
+        @Override
+        public synchronized long unusedIds() {
+            return rangeEnd - rangeNext + leases.stream()
+                    .mapToLong(Lease::remaining)
+                    .sum();
+        }
+
+        // Replaces the exhausted lease of the calling thread. For a batch, whole ranges that fit
+        // in the ids still needed are appended to ids right away
+        private synchronized Lease refill(IdRanges ids, long needed) {
+            Thread owner = Thread.currentThread();
+            leases.remove(threadLease.get());
+
+            Lease lease = rangeNext < rangeEnd ? null : steal(owner);
+            if (lease == null) {
+                if (rangeNext == rangeEnd) {
+                    Pair<Long, Long> nextRange = ids == null
+                            ? rangeAssigner.nextRange(id)
+                            : rangeAssigner.nextRange(id, ids, needed);
+                    rangeNext = nextRange.getLeft();
+                    rangeEnd = nextRange.getRight();
+                    leaseSize = Math.max(MIN_LEASE_SIZE, (rangeEnd - rangeNext) / LEASES_PER_RANGE);
+                    log.debug("[{}] RANGE [{}]", id, nextRange);
+                }
+                long wanted = ids == null ? leaseSize : Math.max(leaseSize, needed - ids.length());
+                int size = (int) Math.min(Math.min(wanted, rangeEnd - rangeNext), Integer.MAX_VALUE);
+                lease = new Lease(owner, rangeNext, size);
+                rangeNext += size;
+            }
+
+            leases.add(lease);
+            threadLease.set(lease);
+            return lease;
+        }
 
-            // Case 3: Increment above the range
-            // Busy-wait until other thread pulls a new range,
-            // and we successfully generate an id withing it
-            while (!currState.isWithin(nextId)) {
-                log.info("[{}] ABOVE [{}]: {}", id, currState.range, nextId);
-                currState = this.rangeCounter.get();
-                nextId = currState.nextId();
+        // Null when no other lease has ids left, leases of dead threads are dropped on the way
+        private Lease steal(Thread thief) {
+            while (true) {
+                Lease victim = null;
+                for (Iterator<Lease> it = leases.iterator(); it.hasNext(); ) {
+                    Lease lease = it.next();
+                    long remaining = lease.remaining();
+                    if (remaining == 0 && !lease.owner.isAlive()) {
+                        it.remove();
+                    } else if (remaining > 0 && (victim == null || remaining > victim.remaining())) {
+                        victim = lease;
+                    }
+                }
+                if (victim == null) {
+                    return null;
+                }
+
+                // Null when the owner used up the rest meanwhile, then look again
+                Lease stolen = victim.steal(thief, !victim.owner.isAlive());
+                if (stolen != null) {
+                    log.debug("[{}] STOLEN {} ids from {}", id, stolen.remaining(), victim.owner.getName());
+                    return stolen;
+                }
             }
-            log.info("[{}] ABOVE FINISHED [{}]: {}", id, currState.range, nextId);
-            return nextId;
         }
 
+        // Ids [base + next, base + end), next and end packed in one long so that the owner taking ids
+        // and a thief cutting the end off can't both get the same one
+        private static class Lease {
+            private static final long ONE_TAKEN = 1L << 32;
+            private final Thread owner;
+            private final long base;
+            private final AtomicLong state;
+
+            Lease(Thread owner, long base, int size) {
+                this.owner = owner;
+                this.base = base;
+                this.state = new AtomicLong(size);
+            }
+
+            static int next(long state) {
+                return (int) (state >>> 32);
+            }
+
+            static int end(long state) {
+                return (int) state;
+            }
+
+            long remaining() {
+                long state = this.state.get();
+                return Math.max(0, end(state) - next(state));
+            }
+
+            void take(IdRanges ids, long wanted) {
+                while (true) {
+                    long state = this.state.get();
+                    int count = (int) Math.min(wanted, end(state) - next(state));
+                    if (count <= 0) {
+                        return;
+                    }
+                    if (this.state.compareAndSet(state, state + count * ONE_TAKEN)) {
+                        ids.add(base + next(state), count);
+                        return;
+                    }
+                }
+            }
+
+            // The upper half of what is left, all of it when the owner is gone
+            Lease steal(Thread thief, boolean all) {
+                while (true) {
+                    long state = this.state.get();
+                    int next = next(state);
+                    int end = end(state);
+                    if (next >= end) {
+                        return null;
+                    }
+                    int newEnd = all ? next : end - (end - next + 1) / 2;
+                    if (this.state.compareAndSet(state, (long) next << 32 | newEnd)) {
+                        return new Lease(thief, base + newEnd, end - newEnd);
+                    }
+                }
+            }
+        }
     }
 
 }
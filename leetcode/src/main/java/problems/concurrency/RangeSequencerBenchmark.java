@@ -0,0 +1,125 @@
+package problems.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import problems.concurrency.RangeSequencer.AdaptiveRangeAssigner;
+import problems.concurrency.RangeSequencer.InMemoryRangeAssigner;
+import problems.concurrency.RangeSequencer.LoadBalancer;
+import problems.concurrency.RangeSequencer.RangeAssigner;
+import problems.concurrency.RangeSequencer.WorkerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency percentiles of {@link RangeSequencer.IdGenerator#generateId()}
+ * and its bulk counterpart under contention. After each iteration the id density is logged:
+ * unfinished ids are still sitting in workers' current ranges,
+ * lost ids were issued by the {@link RangeAssigner} but will never be handed out.
+ * <p>
+ * Run with: {@code mvn -B -Pjmh package && java -jar target/benchmarks.jar RangeSequencerBenchmark -t 10}
+ * or via {@link #main(String[])} which sweeps over {@link #THREAD_COUNTS}.
+ */
+@Slf4j
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeSequencerBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 4, 10, 16};
+    private static final long MAX_RANGE_GROWTH = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Sequencer {
+        // String rather than the enum itself: JMH generated code lives in another package
+        @Param({"RRW_LOCK", "NON_BLOCKING", "THREAD_LEASE", "GARBAGE_FREE", "SNOWFLAKE"})
+        String workerType;
+
+        @Param({"5", "100", "10000"})
+        long rangeSize;
+
+        @Param({"1", "3", "8"})
+        int poolSize;
+
+        // ADAPTIVE starts ranges at rangeSize and grows them up to a 1ms refill interval
+        @Param({"FIXED", "ADAPTIVE"})
+        String rangeSizing;
+
+        RangeAssigner rangeAssigner;
+        LoadBalancer lb;
+        LongAdder generated;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            rangeAssigner = rangeSizing.equals("ADAPTIVE")
+                    ? new AdaptiveRangeAssigner(rangeSize, rangeSize * MAX_RANGE_GROWTH, Duration.ofMillis(1))
+                    : new InMemoryRangeAssigner(rangeSize);
+            lb = new LoadBalancer(new WorkerFactory(WorkerFactory.WorkerType.valueOf(workerType), rangeAssigner), poolSize);
+            generated = new LongAdder();
+        }
+
+        @TearDown(Level.Iteration)
+        public void reportDensity() {
+            if (workerType.equals("SNOWFLAKE")) {
+                // Time based, no ranges are issued
+                return;
+            }
+            long issued = rangeAssigner.issuedIds();
+            long used = generated.sum();
+            long unfinished = lb.getPool().stream()
+                    .mapToLong(RangeSequencer.IdGenerator::unusedIds)
+                    .sum();
+            long lost = issued - used - unfinished;
+            log.info("[{} {} range:{} pool:{}] issued:{} used:{} unfinished:{} lost:{} density:{}",
+                    workerType, rangeSizing, rangeSize, poolSize, issued, used, unfinished, lost,
+                    String.format("%.4f", issued == 0 ? 1.0 : (double) used / issued));
+        }
+    }
+
+    @Benchmark
+    public long generateId(Sequencer sequencer) {
+        long id = sequencer.lb.next().generateId();
+        sequencer.generated.increment();
+        return id;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+        @Param({"100", "1000"})
+        int batchSize;
+    }
+
+    @Benchmark
+    public long[] generateIds(Sequencer sequencer, Batch batch) {
+        long[] ids = sequencer.lb.generateIds(batch.batchSize);
+        sequencer.generated.add(batch.batchSize);
+        return ids;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(RangeSequencerBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
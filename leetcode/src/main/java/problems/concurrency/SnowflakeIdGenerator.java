@@ -0,0 +1,128 @@
+package problems.concurrency;
+
+import lombok.Getter;
+import problems.concurrency.RangeSequencer.IdGenerator;
+import problems.concurrency.RangeSequencer.IdRanges;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Time based {@link IdGenerator} that needs no coordination beyond a unique worker number.
+ * Across nodes that takes a disjoint block of worker numbers per node, see {@code WorkerFactory}.
+ * Every id is a positive long laid out as:
+ * <pre>
+ * | 0 | 41 bits millis since EPOCH | 10 bits worker number | 12 bits sequence |
+ * </pre>
+ * The millis and the sequence of the last id share one {@link AtomicLong}, so an id is
+ * a single CAS away. The timestamp never goes backwards: when the clock does, the worker keeps
+ * counting on its last millisecond and waits for the clock only once that sequence runs out.
+ * Jumps back by more than {@link #MAX_CLOCK_BACKWARD_MILLIS} are refused instead of waited out.
+ * <p>
+ * Ids of one worker are strictly increasing, ids of different workers are only roughly
+ * time ordered, and a worker tops out at 4096 ids per millisecond.
+ */
+class SnowflakeIdGenerator implements IdGenerator {
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 10;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    static final int MAX_WORKERS = 1 << WORKER_BITS;
+    // 2020-01-01T00:00:00Z, 41 bits of millis last until 2089
+    private static final long EPOCH = 1_577_836_800_000L;
+    private static final long MAX_CLOCK_BACKWARD_MILLIS = 1_000;
+
+    @Getter
+    private final String id;
+    private final long workerBits;
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong lastState;
+
+    SnowflakeIdGenerator(String id, int workerNumber) {
+        if (workerNumber < 0 || workerNumber >= MAX_WORKERS) {
+            // Wrapping it would silently share a number with another worker
+            throw new IllegalArgumentException(format("[%s] Worker number %d out of [0, %d)",
+                    id, workerNumber, MAX_WORKERS));
+        }
+        this.id = id;
+        this.workerBits = (long) workerNumber << SEQUENCE_BITS;
+        // As if the previous millisecond was used up, the first id starts a fresh sequence
+        this.lastState = new AtomicLong((currentMillis() - 1) << SEQUENCE_BITS | MAX_SEQUENCE);
+    }
+
+    @Override
+    public long generateId() {
+        while (true) {
+            long currState = lastState.get();
+            long lastMillis = currState >>> SEQUENCE_BITS;
+            long nowMillis = checkedMillis(lastMillis);
+
+            long nextState;
+            if (nowMillis > lastMillis) {
+                nextState = nowMillis << SEQUENCE_BITS;
+            } else if ((currState & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                // Same millisecond, or the clock went back and we keep counting on the last one
+                nextState = currState + 1;
+            } else {
+                // Sequence exhausted, normally the next millisecond is a few hundred micros away
+                Thread.onSpinWait();
+                continue;
+            }
+
+            if (lastState.compareAndSet(currState, nextState)) {
+                return toId(nextState);
+            }
+        }
+    }
+
+    @Override
+    public long[] generateIds(int n) {
+        IdGenerator.checkBatchSize(n);
+        IdRanges ids = new IdRanges();
+        while (ids.length() < n) {
+            long currState = lastState.get();
+            long lastMillis = currState >>> SEQUENCE_BITS;
+            long nowMillis = checkedMillis(lastMillis);
+
+            // Consecutive sequence numbers of one millisecond are consecutive ids
+            long firstState;
+            if (nowMillis > lastMillis) {
+                firstState = nowMillis << SEQUENCE_BITS;
+            } else if ((currState & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                firstState = currState + 1;
+            } else {
+                Thread.onSpinWait();
+                continue;
+            }
+            long taken = Math.min(n - ids.length(), MAX_SEQUENCE - (firstState & MAX_SEQUENCE) + 1);
+
+            if (lastState.compareAndSet(currState, firstState + taken - 1)) {
+                ids.add(toId(firstState), taken);
+            }
+        }
+        return ids.toArray();
+    }
+
+    @Override
+    public long unusedIds() {
+        // Nothing is reserved ahead, unused sequence numbers are simply skipped
+        return 0;
+    }
+
+    private long checkedMillis(long lastMillis) {
+        long nowMillis = currentMillis();
+        if (lastMillis - nowMillis > MAX_CLOCK_BACKWARD_MILLIS) {
+            throw new IllegalStateException(format("[%s] Clock moved backwards by %d ms, refusing to generate ids",
+                    id, lastMillis - nowMillis));
+        }
+        return nowMillis;
+    }
+
+    private long toId(long state) {
+        return (state >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS) | workerBits | (state & MAX_SEQUENCE);
+    }
+
+    private static long currentMillis() {
+        return System.currentTimeMillis() - EPOCH;
+    }
+}
@@ -0,0 +1,58 @@
+package problems.heap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state add/pop throughput of {@link DaryMinHeap} per arity as the heap outgrows the caches.
+ * The heap is filled once per trial and every op pops the minimum and adds a random value back,
+ * so the size stays put, like a busy work queue.
+ * <p>
+ * The 100M heap needs about 400 MB, hence the larger fork heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class DaryHeapBenchmark {
+
+    @Param({"2", "4", "8"})
+    int arity;
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    DaryMinHeap heap;
+    // xorshift state, java.util.Random would dominate the cheap small heap ops
+    int seed = 42;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        heap = DaryMinHeap.heapify(arity, new Random(42).ints(size).toArray());
+    }
+
+    @Benchmark
+    public int popAdd() {
+        int popped = heap.pop();
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        heap.add(seed);
+        return popped;
+    }
+}
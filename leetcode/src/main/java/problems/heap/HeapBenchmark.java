@@ -0,0 +1,134 @@
+package problems.heap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primitive heaps against {@link PriorityQueue} on the same inputs: add everything then drain,
+ * bulk construction, top-K selection and deadline ordered scheduling.
+ * Run with {@code -prof gc} to see the boxing cost next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeapBenchmark {
+    private static final int TOP_K = 100;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    int[] values;
+    List<Integer> boxedValues;
+    long[] deadlines;
+    int[] tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        values = random.ints(size).toArray();
+        boxedValues = Arrays.stream(values).boxed().toList();
+        deadlines = random.longs(size, 0, size).toArray();
+        tasks = new int[size];
+        Arrays.setAll(tasks, i -> i);
+    }
+
+    @Benchmark
+    public void intMinHeapAddPop(Blackhole blackhole) {
+        IntMinHeap heap = new IntMinHeap();
+        for (int value : values) {
+            heap.add(value);
+        }
+        while (!heap.isEmpty()) {
+            blackhole.consume(heap.pop());
+        }
+    }
+
+    @Benchmark
+    public void priorityQueueAddPoll(Blackhole blackhole) {
+        PriorityQueue<Integer> queue = new PriorityQueue<>();
+        for (int value : values) {
+            queue.add(value);
+        }
+        while (!queue.isEmpty()) {
+            blackhole.consume(queue.poll());
+        }
+    }
+
+    @Benchmark
+    public IntMinHeap intMinHeapHeapify() {
+        return IntMinHeap.heapify(values);
+    }
+
+    @Benchmark
+    public PriorityQueue<Integer> priorityQueueHeapify() {
+        // Already boxed, this measures the heap construction alone
+        return new PriorityQueue<>(boxedValues);
+    }
+
+    @Benchmark
+    public IntMinHeap intMinHeapTopK() {
+        IntMinHeap heap = IntMinHeap.heapify(Arrays.copyOf(values, TOP_K));
+        for (int i = TOP_K; i < values.length; i++) {
+            heap.pushPop(values[i]);
+        }
+        return heap;
+    }
+
+    @Benchmark
+    public PriorityQueue<Integer> priorityQueueTopK() {
+        PriorityQueue<Integer> queue = new PriorityQueue<>(TOP_K + 1);
+        for (int value : values) {
+            queue.add(value);
+            if (queue.size() > TOP_K) {
+                queue.poll();
+            }
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public void longIntMinHeapSchedule(Blackhole blackhole) {
+        LongIntMinHeap heap = new LongIntMinHeap();
+        for (int task : tasks) {
+            heap.add(deadlines[task], task);
+        }
+        while (!heap.isEmpty()) {
+            blackhole.consume(heap.pop());
+        }
+    }
+
+    @Benchmark
+    public void priorityQueueSchedule(Blackhole blackhole) {
+        PriorityQueue<Task> queue = new PriorityQueue<>(Comparator.comparingLong(Task::deadline));
+        for (int task : tasks) {
+            queue.add(new Task(deadlines[task], task));
+        }
+        while (!queue.isEmpty()) {
+            blackhole.consume(queue.poll().index());
+        }
+    }
+
+    private record Task(long deadline, int index) {
+    }
+}
@@ -0,0 +1,213 @@
+package problems.heap;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Binary min-heap over int ids in [0, capacity), each with an int key that can be changed in place.
+ * Same 1-indexed layout as {@link MinHeap}. {@code positions[id]} tracks where every id sits,
+ * which makes {@link #contains(int)} O(1) and {@link #decreaseKey(int, int)} and
+ * {@link #remove(int)} O(log n), so graph searches keep one entry per vertex instead of
+ * piling up stale duplicates.
+ */
+public class IndexedMinHeap {
+    private static final int ABSENT = 0;
+
+    // ids by heap position, slot 0 unused
+    private final int[] heap;
+    // heap position by id, ABSENT when not in the heap
+    private final int[] positions;
+    private final int[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity + 1];
+        this.positions = new int[capacity];
+        this.keys = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return positions[id] != ABSENT;
+    }
+
+    public int key(int id) {
+        checkContains(id);
+        return keys[id];
+    }
+
+    public int peekId() {
+        checkNotEmpty();
+        return heap[1];
+    }
+
+    public int peekKey() {
+        checkNotEmpty();
+        return keys[heap[1]];
+    }
+
+    public void add(int id, int key) {
+        if (contains(id)) {
+            throw new IllegalArgumentException("Id " + id + " is already in the heap");
+        }
+        size++;
+        keys[id] = key;
+        siftUp(size, id);
+    }
+
+    // Removes the id with the smallest key and returns it
+    public int pop() {
+        int popped = peekId();
+        removeAt(1);
+        return popped;
+    }
+
+    public void decreaseKey(int id, int key) {
+        checkContains(id);
+        if (key > keys[id]) {
+            throw new IllegalArgumentException("Key " + key + " is greater than current " + keys[id]);
+        }
+        keys[id] = key;
+        siftUp(positions[id], id);
+    }
+
+    // Adds the id, or lowers its key if the new one is smaller; returns whether anything changed
+    public boolean addOrDecreaseKey(int id, int key) {
+        if (!contains(id)) {
+            add(id, key);
+            return true;
+        }
+        if (key < keys[id]) {
+            decreaseKey(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    public void remove(int id) {
+        checkContains(id);
+        removeAt(positions[id]);
+    }
+
+    private void removeAt(int position) {
+        positions[heap[position]] = ABSENT;
+        int last = heap[size];
+        size--;
+        if (position > size) {
+            // Removed the last slot itself
+            return;
+        }
+        // The last id may belong above or below the hole
+        siftDown(position, last);
+        if (positions[last] == position) {
+            siftUp(position, last);
+        }
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+    }
+
+    private void checkContains(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Id " + id + " is not in the heap");
+        }
+    }
+
+    private void siftUp(int curr, int id) {
+        int key = keys[id];
+        while (curr > 1) {
+            int parent = curr / 2;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            place(curr, heap[parent]);
+            curr = parent;
+        }
+        place(curr, id);
+    }
+
+    private void siftDown(int curr, int id) {
+        int key = keys[id];
+        while (curr * 2 <= size) {
+            int child = curr * 2;
+            if (child < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            place(curr, heap[child]);
+            curr = child;
+        }
+        place(curr, id);
+    }
+
+    private void place(int position, int id) {
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        int capacity = 1_000;
+        IndexedMinHeap heap = new IndexedMinHeap(capacity);
+        int[] expectedKeys = new int[capacity];
+        boolean[] present = new boolean[capacity];
+
+        // Random mix of adds, key decreases and removals, mirrored in plain arrays
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(capacity);
+            int key = random.nextInt(10_000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    if (heap.addOrDecreaseKey(id, key)) {
+                        expectedKeys[id] = present[id] ? Math.min(expectedKeys[id], key) : key;
+                        present[id] = true;
+                    }
+                }
+                case 1 -> {
+                    if (heap.contains(id) && key <= heap.key(id)) {
+                        heap.decreaseKey(id, key);
+                        expectedKeys[id] = key;
+                    }
+                }
+                default -> {
+                    if (heap.contains(id)) {
+                        heap.remove(id);
+                        present[id] = false;
+                    }
+                }
+            }
+        }
+
+        PriorityQueue<Integer> expected = new PriorityQueue<>((a, b) -> Integer.compare(expectedKeys[a], expectedKeys[b]));
+        for (int id = 0; id < capacity; id++) {
+            if (present[id] != heap.contains(id)) {
+                System.out.println("Contains mismatch for id " + id);
+                return;
+            }
+            if (present[id]) {
+                expected.add(id);
+            }
+        }
+        while (!expected.isEmpty()) {
+            int expectedKey = expectedKeys[expected.poll()];
+            if (heap.peekKey() != expectedKey || expectedKeys[heap.pop()] != expectedKey) {
+                System.out.println("Pop mismatch, expected key " + expectedKey);
+                return;
+            }
+        }
+
+        System.out.println("Heap order matches PriorityQueue");
+    }
+}
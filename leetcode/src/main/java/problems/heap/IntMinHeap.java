@@ -0,0 +1,150 @@
+package problems.heap;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Growable binary min-heap of primitive ints, a boxing free stand-in for {@code PriorityQueue<Integer>}.
+ * Same 1-indexed layout as {@link MinHeap}: children of i are 2i and 2i + 1.
+ */
+public class IntMinHeap {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] items;
+    private int size;
+
+    public IntMinHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntMinHeap(int initialCapacity) {
+        this.items = new int[Math.max(initialCapacity, 1) + 1];
+    }
+
+    // Bottom-up construction in O(n), cheaper than n adds
+    public static IntMinHeap heapify(int[] values) {
+        IntMinHeap heap = new IntMinHeap(values.length);
+        System.arraycopy(values, 0, heap.items, 1, values.length);
+        heap.size = values.length;
+        for (int i = heap.size / 2; i >= 1; i--) {
+            heap.siftDown(i, heap.items[i]);
+        }
+        return heap;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return items[1];
+    }
+
+    public void add(int value) {
+        if (size + 1 == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+        }
+        size++;
+        siftUp(size, value);
+    }
+
+    public int pop() {
+        int popped = peek();
+        int last = items[size];
+        size--;
+        if (size > 0) {
+            siftDown(1, last);
+        }
+        return popped;
+    }
+
+    // add(value) followed by pop(), in a single sift
+    public int pushPop(int value) {
+        if (size == 0 || value <= items[1]) {
+            return value;
+        }
+        int popped = items[1];
+        siftDown(1, value);
+        return popped;
+    }
+
+    // pop() followed by add(value), in a single sift
+    public int replaceTop(int value) {
+        int popped = peek();
+        siftDown(1, value);
+        return popped;
+    }
+
+    // Moves the hole at curr up until value fits, parents are shifted down instead of swapped
+    private void siftUp(int curr, int value) {
+        while (curr > 1) {
+            int parent = curr / 2;
+            if (items[parent] <= value) {
+                break;
+            }
+            items[curr] = items[parent];
+            curr = parent;
+        }
+        items[curr] = value;
+    }
+
+    private void siftDown(int curr, int value) {
+        while (curr * 2 <= size) {
+            int child = curr * 2;
+            if (child < size && items[child + 1] < items[child]) {
+                child++;
+            }
+            if (value <= items[child]) {
+                break;
+            }
+            items[curr] = items[child];
+            curr = child;
+        }
+        items[curr] = value;
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        int[] values = random.ints(10_000, -1_000, 1_000).toArray();
+
+        // Grows from the smallest capacity
+        IntMinHeap added = new IntMinHeap(1);
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        for (int value : values) {
+            added.add(value);
+            expected.add(value);
+        }
+        IntMinHeap heapified = heapify(values);
+        for (int i = 0; i < values.length; i++) {
+            int expectedValue = expected.poll();
+            if (added.pop() != expectedValue || heapified.pop() != expectedValue) {
+                System.out.println("Pop mismatch at " + i);
+                return;
+            }
+        }
+
+        // Top 10 of the values, kept in a min-heap of the 10 largest seen so far
+        IntMinHeap topK = heapify(Arrays.copyOf(values, 10));
+        for (int i = 10; i < values.length; i++) {
+            topK.pushPop(values[i]);
+        }
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = sorted.length - 10; i < sorted.length; i++) {
+            if (topK.pop() != sorted[i]) {
+                System.out.println("Top K mismatch at " + i);
+                return;
+            }
+        }
+
+        System.out.println("Heap order matches PriorityQueue");
+    }
+}
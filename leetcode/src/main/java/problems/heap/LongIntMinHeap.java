@@ -0,0 +1,161 @@
+package problems.heap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Growable binary min-heap of long keys carrying an int payload each, e.g. deadline and task index,
+ * without the per entry object a {@code PriorityQueue} of pairs needs.
+ * Keys and payloads live in parallel arrays, read the key of the top entry with {@link #peekKey()}
+ * before popping it: pop operations hand back the payload.
+ */
+public class LongIntMinHeap {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntMinHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongIntMinHeap(int initialCapacity) {
+        this.keys = new long[Math.max(initialCapacity, 1) + 1];
+        this.values = new int[keys.length];
+    }
+
+    // Bottom-up construction in O(n), keys[i] goes with values[i]
+    public static LongIntMinHeap heapify(long[] keys, int[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values differ in length");
+        }
+        LongIntMinHeap heap = new LongIntMinHeap(keys.length);
+        System.arraycopy(keys, 0, heap.keys, 1, keys.length);
+        System.arraycopy(values, 0, heap.values, 1, values.length);
+        heap.size = keys.length;
+        for (int i = heap.size / 2; i >= 1; i--) {
+            heap.siftDown(i, heap.keys[i], heap.values[i]);
+        }
+        return heap;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long peekKey() {
+        checkNotEmpty();
+        return keys[1];
+    }
+
+    public int peekValue() {
+        checkNotEmpty();
+        return values[1];
+    }
+
+    public void add(long key, int value) {
+        if (size + 1 == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            values = Arrays.copyOf(values, keys.length);
+        }
+        size++;
+        siftUp(size, key, value);
+    }
+
+    public int pop() {
+        int popped = peekValue();
+        long lastKey = keys[size];
+        int lastValue = values[size];
+        size--;
+        if (size > 0) {
+            siftDown(1, lastKey, lastValue);
+        }
+        return popped;
+    }
+
+    // add(key, value) followed by pop(), in a single sift
+    public int pushPop(long key, int value) {
+        if (size == 0 || key <= keys[1]) {
+            return value;
+        }
+        int popped = values[1];
+        siftDown(1, key, value);
+        return popped;
+    }
+
+    // pop() followed by add(key, value), in a single sift
+    public int replaceTop(long key, int value) {
+        int popped = peekValue();
+        siftDown(1, key, value);
+        return popped;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+    }
+
+    private void siftUp(int curr, long key, int value) {
+        while (curr > 1) {
+            int parent = curr / 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[curr] = keys[parent];
+            values[curr] = values[parent];
+            curr = parent;
+        }
+        keys[curr] = key;
+        values[curr] = value;
+    }
+
+    private void siftDown(int curr, long key, int value) {
+        while (curr * 2 <= size) {
+            int child = curr * 2;
+            if (child < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[curr] = keys[child];
+            values[curr] = values[child];
+            curr = child;
+        }
+        keys[curr] = key;
+        values[curr] = value;
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        long[] deadlines = random.longs(10_000, 0, 1_000).toArray();
+        int[] tasks = new int[deadlines.length];
+        Arrays.setAll(tasks, i -> i);
+
+        LongIntMinHeap added = new LongIntMinHeap(1);
+        PriorityQueue<Integer> expected = new PriorityQueue<>(Comparator.comparingLong(task -> deadlines[task]));
+        for (int task : tasks) {
+            added.add(deadlines[task], task);
+            expected.add(task);
+        }
+        LongIntMinHeap heapified = heapify(deadlines, tasks);
+        for (int i = 0; i < tasks.length; i++) {
+            // Ties may come out in any order, compare by deadline
+            long expectedDeadline = deadlines[expected.poll()];
+            if (deadlines[added.pop()] != expectedDeadline || deadlines[heapified.pop()] != expectedDeadline) {
+                System.out.println("Pop mismatch at " + i);
+                return;
+            }
+        }
+
+        System.out.println("Heap order matches PriorityQueue");
+    }
+}
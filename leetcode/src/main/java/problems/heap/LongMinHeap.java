@@ -0,0 +1,148 @@
+package problems.heap;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Growable binary min-heap of primitive longs, a boxing free stand-in for {@code PriorityQueue<Long>}.
+ * Same 1-indexed layout as {@link MinHeap}: children of i are 2i and 2i + 1.
+ */
+public class LongMinHeap {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] items;
+    private int size;
+
+    public LongMinHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongMinHeap(int initialCapacity) {
+        this.items = new long[Math.max(initialCapacity, 1) + 1];
+    }
+
+    // Bottom-up construction in O(n), cheaper than n adds
+    public static LongMinHeap heapify(long[] values) {
+        LongMinHeap heap = new LongMinHeap(values.length);
+        System.arraycopy(values, 0, heap.items, 1, values.length);
+        heap.size = values.length;
+        for (int i = heap.size / 2; i >= 1; i--) {
+            heap.siftDown(i, heap.items[i]);
+        }
+        return heap;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return items[1];
+    }
+
+    public void add(long value) {
+        if (size + 1 == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+        }
+        size++;
+        siftUp(size, value);
+    }
+
+    public long pop() {
+        long popped = peek();
+        long last = items[size];
+        size--;
+        if (size > 0) {
+            siftDown(1, last);
+        }
+        return popped;
+    }
+
+    // add(value) followed by pop(), in a single sift
+    public long pushPop(long value) {
+        if (size == 0 || value <= items[1]) {
+            return value;
+        }
+        long popped = items[1];
+        siftDown(1, value);
+        return popped;
+    }
+
+    // pop() followed by add(value), in a single sift
+    public long replaceTop(long value) {
+        long popped = peek();
+        siftDown(1, value);
+        return popped;
+    }
+
+    // Moves the hole at curr up until value fits, parents are shifted down instead of swapped
+    private void siftUp(int curr, long value) {
+        while (curr > 1) {
+            int parent = curr / 2;
+            if (items[parent] <= value) {
+                break;
+            }
+            items[curr] = items[parent];
+            curr = parent;
+        }
+        items[curr] = value;
+    }
+
+    private void siftDown(int curr, long value) {
+        while (curr * 2 <= size) {
+            int child = curr * 2;
+            if (child < size && items[child + 1] < items[child]) {
+                child++;
+            }
+            if (value <= items[child]) {
+                break;
+            }
+            items[curr] = items[child];
+            curr = child;
+        }
+        items[curr] = value;
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        long[] values = random.longs(10_000).toArray();
+
+        LongMinHeap added = new LongMinHeap(1);
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        for (long value : values) {
+            added.add(value);
+            expected.add(value);
+        }
+        LongMinHeap heapified = heapify(values);
+        for (int i = 0; i < values.length; i++) {
+            long expectedValue = expected.poll();
+            if (added.pop() != expectedValue || heapified.pop() != expectedValue) {
+                System.out.println("Pop mismatch at " + i);
+                return;
+            }
+        }
+
+        // Replacing the top with a larger value behaves like pop() then add()
+        LongMinHeap replaced = heapify(values);
+        PriorityQueue<Long> expectedReplaced = new PriorityQueue<>();
+        Arrays.stream(values).forEach(expectedReplaced::add);
+        for (int i = 0; i < values.length; i++) {
+            long expectedValue = expectedReplaced.poll();
+            expectedReplaced.add(expectedValue / 2 + Long.MAX_VALUE / 2);
+            if (replaced.replaceTop(expectedValue / 2 + Long.MAX_VALUE / 2) != expectedValue) {
+                System.out.println("Replace top mismatch at " + i);
+                return;
+            }
+        }
+
+        System.out.println("Heap order matches PriorityQueue");
+    }
+}
@@ -0,0 +1,91 @@
+package problems.heap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state pop+add throughput of {@link MappedMinHeap} next to the on-heap {@link IntMinHeap}.
+ * Pick sizes around the machine's RAM with {@code -p size=...}: 4 bytes per item, the on-heap
+ * variant also needs a matching {@code -Xmx} and stops being an option well before the mapped one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class MappedHeapBenchmark {
+
+    @Param({"ON_HEAP", "MAPPED"})
+    String heap;
+
+    @Param({"10000000", "100000000", "500000000"})
+    int size;
+
+    IntMinHeap onHeap;
+    MappedMinHeap mapped;
+    Path file;
+    // xorshift state, cheaper than java.util.Random
+    int seed = 42;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Random adds sift up a constant number of levels on average, filling stays linear
+        if (heap.equals("ON_HEAP")) {
+            onHeap = new IntMinHeap(size);
+            for (int i = 0; i < size; i++) {
+                onHeap.add(nextValue());
+            }
+        } else {
+            file = Files.createTempFile("mapped-heap-benchmark", ".bin");
+            mapped = new MappedMinHeap(file);
+            for (int i = 0; i < size; i++) {
+                mapped.add(nextValue());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (mapped != null) {
+            mapped.close();
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public int popAdd() {
+        int value = nextValue();
+        if (mapped != null) {
+            int popped = mapped.pop();
+            mapped.add(value);
+            return popped;
+        }
+        int popped = onHeap.pop();
+        onHeap.add(value);
+        return popped;
+    }
+
+    private int nextValue() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
@@ -0,0 +1,210 @@
+package problems.heap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * {@link MinHeap} of ints kept in a memory-mapped file rather than an {@code int[]}, so it can grow
+ * past the Java heap and costs the GC nothing. The OS pages it in and out, a heap bigger than RAM
+ * still works, just at disk speed for the levels that don't fit.
+ * <p>
+ * File layout: the size as a long, then the 1-indexed items as ints, slot 0 holding a clean flag.
+ * The file is mapped in {@link #CHUNK_BYTES} chunks because a single buffer can't exceed 2 GB.
+ * Opening an existing file resumes the heap it holds, provided it was left by {@link #close()}:
+ * an add or pop cut halfway moves items around beyond the recorded size, so a file left
+ * by a process that died is refused rather than resumed with items silently missing.
+ */
+public class MappedMinHeap implements AutoCloseable {
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_BYTES - 1;
+    // A multiple of the item width, so items never straddle chunks
+    private static final long HEADER_BYTES = Long.BYTES;
+    // Slot 0, set by close() and cleared while the heap is open
+    private static final int CLEAN = 0x434C4E;
+    private static final int DIRTY = 0;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long size;
+
+    public MappedMinHeap(Path file) {
+        try {
+            boolean exists = Files.exists(file) && Files.size(file) > 0;
+            this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+            mapChunk();
+            if (exists) {
+                if (get(0) != CLEAN) {
+                    channel.close();
+                    throw new IllegalStateException(file + " was not closed, a cut off update may have lost items");
+                }
+                this.size = chunks.get(0).getLong(0);
+                ensureMapped(size);
+            }
+            set(0, DIRTY);
+            chunks.get(0).force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return get(1);
+    }
+
+    public void add(int value) {
+        size++;
+        siftUp(size, value);
+        writeSize();
+    }
+
+    public int pop() {
+        int popped = peek();
+        int last = get(size);
+        size--;
+        if (size > 0) {
+            siftDown(1, last);
+        }
+        writeSize();
+        return popped;
+    }
+
+    @Override
+    public void close() {
+        try {
+            chunks.forEach(MappedByteBuffer::force);
+            // Only once the items are on disk
+            set(0, CLEAN);
+            chunks.get(0).force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void siftUp(long curr, int value) {
+        while (curr > 1) {
+            long parent = curr / 2;
+            int parentValue = get(parent);
+            if (parentValue <= value) {
+                break;
+            }
+            set(curr, parentValue);
+            curr = parent;
+        }
+        set(curr, value);
+    }
+
+    private void siftDown(long curr, int value) {
+        while (curr * 2 <= size) {
+            long child = curr * 2;
+            int childValue = get(child);
+            if (child < size) {
+                int rightValue = get(child + 1);
+                if (rightValue < childValue) {
+                    child++;
+                    childValue = rightValue;
+                }
+            }
+            if (value <= childValue) {
+                break;
+            }
+            set(curr, childValue);
+            curr = child;
+        }
+        set(curr, value);
+    }
+
+    private int get(long index) {
+        long offset = HEADER_BYTES + index * Integer.BYTES;
+        return chunks.get((int) (offset >>> CHUNK_SHIFT)).getInt((int) (offset & CHUNK_MASK));
+    }
+
+    private void set(long index, int value) {
+        long offset = HEADER_BYTES + index * Integer.BYTES;
+        ensureMapped(index);
+        chunks.get((int) (offset >>> CHUNK_SHIFT)).putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    private void ensureMapped(long index) {
+        long offset = HEADER_BYTES + index * Integer.BYTES;
+        while ((offset >>> CHUNK_SHIFT) >= chunks.size()) {
+            mapChunk();
+        }
+    }
+
+    private void writeSize() {
+        chunks.get(0).putLong(0, size);
+    }
+
+    // Mapping past the end grows the file, sparsely on most file systems
+    private void mapChunk() {
+        try {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * CHUNK_BYTES, CHUNK_BYTES));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("mapped-min-heap", ".bin");
+        try {
+            // Enough items to span several chunks
+            int[] values = new Random(42).ints(20_000_000).toArray();
+            try (MappedMinHeap heap = new MappedMinHeap(file)) {
+                for (int value : values) {
+                    heap.add(value);
+                }
+            }
+
+            // Reopen as after a restart and drain
+            IntMinHeap expected = IntMinHeap.heapify(values);
+            try (MappedMinHeap heap = new MappedMinHeap(file)) {
+                if (heap.size() != values.length) {
+                    System.out.println("Size mismatch after reopen: " + heap.size());
+                    return;
+                }
+                while (!expected.isEmpty()) {
+                    if (heap.pop() != expected.pop()) {
+                        System.out.println("Pop mismatch at " + expected.size());
+                        return;
+                    }
+                }
+            }
+            System.out.println("Reopened heap order matches IntMinHeap");
+
+            // Left open as by a process that died, then reopened
+            MappedMinHeap abandoned = new MappedMinHeap(file);
+            abandoned.add(42);
+            try (MappedMinHeap heap = new MappedMinHeap(file)) {
+                System.out.println("Reopened a heap that was never closed");
+            } catch (IllegalStateException e) {
+                System.out.println("Refused a heap that was never closed");
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
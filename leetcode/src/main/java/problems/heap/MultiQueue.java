@@ -0,0 +1,165 @@
+package problems.heap;
+
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent relaxed priority queue of ints: a MultiQueue of {@link IntMinHeap} shards,
+ * each behind its own lock. {@link #offer(int)} goes to a random shard,
+ * {@link #poll()} takes the minimum of the better of two random shards,
+ * judged by the top every shard publishes after each change. A busy shard is skipped
+ * in favour of another random pick for the first few picks, later ones are waited for.
+ * With one shard there is no other pick, it is always waited for.
+ * <p>
+ * Strictness is set by the shard count. With one shard the queue is exact, at the cost of
+ * serializing every call. With c shards {@link #poll()} may return an element that is not
+ * the minimum: its rank error, the number of smaller elements left in the queue,
+ * is O(c) in expectation, and {@link #main(String[])} checks that the mean stays
+ * below c on a sequential run.
+ * <p>
+ * {@link #poll()} returns an empty {@link OptionalInt} only after seeing every shard empty,
+ * an element offered concurrently with that scan may be missed.
+ */
+public class MultiQueue {
+    // Published top of an empty shard, above every int so that it never wins a comparison
+    private static final long EMPTY_TOP = Long.MAX_VALUE;
+    // Busy shards skipped by one call before it waits for one instead of spinning on
+    private static final int SKIPS_BEFORE_WAIT = 16;
+
+    private final Shard[] shards;
+
+    public MultiQueue(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is needed, got " + shardCount);
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public void offer(int value) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; ; attempt++) {
+            Shard shard = shards[random.nextInt(shards.length)];
+            if (!lock(shard, attempt)) {
+                continue;
+            }
+            try {
+                shard.heap.add(value);
+                shard.top = shard.heap.peek();
+                return;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    public OptionalInt poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; ; attempt++) {
+            Shard shard = betterOfTwo(random);
+            if (shard.top == EMPTY_TOP && (shard = anyNonEmpty()) == null) {
+                return OptionalInt.empty();
+            }
+            if (!lock(shard, attempt)) {
+                continue;
+            }
+            try {
+                // Top may have been taken between the peek and the lock
+                if (!shard.heap.isEmpty()) {
+                    int polled = shard.heap.pop();
+                    shard.top = shard.heap.isEmpty() ? EMPTY_TOP : shard.heap.peek();
+                    return OptionalInt.of(polled);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    // False when the shard is busy and another pick should be tried instead
+    private boolean lock(Shard shard, int attempt) {
+        if (shards.length == 1 || attempt >= SKIPS_BEFORE_WAIT) {
+            shard.lock.lock();
+            return true;
+        }
+        if (shard.lock.tryLock()) {
+            return true;
+        }
+        Thread.onSpinWait();
+        return false;
+    }
+
+    private Shard betterOfTwo(ThreadLocalRandom random) {
+        Shard first = shards[random.nextInt(shards.length)];
+        Shard second = shards[random.nextInt(shards.length)];
+        return first.top <= second.top ? first : second;
+    }
+
+    private Shard anyNonEmpty() {
+        for (Shard shard : shards) {
+            if (shard.top != EMPTY_TOP) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    private static class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final IntMinHeap heap = new IntMinHeap();
+        // Published minimum, read without the lock to pick shards
+        private volatile long top = EMPTY_TOP;
+    }
+
+    public static void main(String[] args) {
+        int n = 100_000;
+        for (int shardCount : new int[]{1, 4, 16, 64}) {
+            MultiQueue queue = new MultiQueue(shardCount);
+            // Fenwick tree over the values still queued, to count the ones smaller than a polled value
+            int[] queued = new int[n + 1];
+            int[] values = new Random(42).ints(0, n).distinct().limit(n).toArray();
+            for (int value : values) {
+                queue.offer(value);
+                for (int i = value + 1; i <= n; i += i & -i) {
+                    queued[i]++;
+                }
+            }
+
+            long totalRankError = 0;
+            int maxRankError = 0;
+            for (int polls = 0; polls < values.length; polls++) {
+                int polled = queue.poll().orElseThrow();
+                int rankError = 0;
+                for (int i = polled; i > 0; i -= i & -i) {
+                    rankError += queued[i];
+                }
+                for (int i = polled + 1; i <= n; i += i & -i) {
+                    queued[i]--;
+                }
+                totalRankError += rankError;
+                maxRankError = Math.max(maxRankError, rankError);
+            }
+
+            double meanRankError = (double) totalRankError / values.length;
+            boolean withinBound = shardCount == 1 ? maxRankError == 0 : meanRankError < shardCount;
+            System.out.printf("shards:%d mean rank error:%.2f max:%d %s%n", shardCount, meanRankError, maxRankError,
+                    withinBound ? "within bound" : "EXCEEDS BOUND");
+            if (queue.poll().isPresent()) {
+                System.out.println("Queue not empty after polling every value");
+            }
+        }
+
+        // Every int is a valid priority, the extremes included
+        MultiQueue queue = new MultiQueue(1);
+        queue.offer(Integer.MAX_VALUE);
+        queue.offer(Integer.MIN_VALUE);
+        if (queue.poll().orElseThrow() != Integer.MIN_VALUE || queue.poll().orElseThrow() != Integer.MAX_VALUE
+                || queue.poll().isPresent()) {
+            System.out.println("Extreme values not polled in order");
+        }
+    }
+}
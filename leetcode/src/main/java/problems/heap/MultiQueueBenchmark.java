@@ -0,0 +1,99 @@
+package problems.heap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared priority queue throughput as producers and consumers are added: a synchronized
+ * {@link IntMinHeap}, i.e. what wrapping a heap gives today, against {@link MultiQueue}
+ * with {@code shardsPerThread} shards per benchmark thread. Every op offers a random value
+ * and polls one, the queue stays at its prefilled size.
+ * <p>
+ * Run via {@link #main(String[])} which sweeps over {@link #THREAD_COUNTS}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiQueueBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int PREFILL = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Queue {
+        @Param({"SYNCHRONIZED", "MULTI_QUEUE"})
+        String queue;
+
+        // Relaxation knob of MULTI_QUEUE, more shards mean less contention and a larger rank error
+        @Param({"2"})
+        int shardsPerThread;
+
+        SynchronizedHeap synchronizedHeap;
+        MultiQueue multiQueue;
+
+        @Setup(Level.Iteration)
+        public void setUp(BenchmarkParams params) {
+            Random random = new Random(42);
+            if (queue.equals("SYNCHRONIZED")) {
+                synchronizedHeap = new SynchronizedHeap();
+                random.ints(PREFILL, 0, Integer.MAX_VALUE).forEach(synchronizedHeap::offer);
+            } else {
+                multiQueue = new MultiQueue(params.getThreads() * shardsPerThread);
+                random.ints(PREFILL, 0, Integer.MAX_VALUE).forEach(multiQueue::offer);
+            }
+        }
+    }
+
+    @Benchmark
+    public OptionalInt offerPoll(Queue queue) {
+        int value = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        if (queue.multiQueue != null) {
+            queue.multiQueue.offer(value);
+            return queue.multiQueue.poll();
+        }
+        queue.synchronizedHeap.offer(value);
+        return queue.synchronizedHeap.poll();
+    }
+
+    private static class SynchronizedHeap {
+        private final IntMinHeap heap = new IntMinHeap();
+
+        synchronized void offer(int value) {
+            heap.add(value);
+        }
+
+        synchronized OptionalInt poll() {
+            return heap.isEmpty() ? OptionalInt.empty() : OptionalInt.of(heap.pop());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(MultiQueueBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
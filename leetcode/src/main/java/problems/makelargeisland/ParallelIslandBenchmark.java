@@ -0,0 +1,74 @@
+package problems.makelargeisland;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Solution#largestIsland(int[][], ForkJoinPool)} on a random {@code gridSize} x {@code gridSize}
+ * grid as the pool grows, {@code parallelism} 0 being the sequential {@link Solution#largestIsland(int[][])}.
+ * The parallel run holds the grid, parents and sizes as three {@code int} per cell,
+ * so 10k x 10k takes 1.2 GB and 20k x 20k about 5 GB of heap.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class ParallelIslandBenchmark {
+    @Param({"10000"})
+    int gridSize;
+
+    // Around 0.6 the land percolates into one island spanning the grid
+    @Param({"0.6"})
+    String landShare;
+
+    @Param({"0", "1", "2", "4", "8"})
+    int parallelism;
+
+    int[][] grid;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        double land = Double.parseDouble(landShare);
+        grid = new int[gridSize][gridSize];
+        for (int[] row : grid) {
+            for (int col = 0; col < row.length; col++) {
+                row[col] = random.nextDouble() < land ? 1 : 0;
+            }
+        }
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int largestIsland() {
+        Solution solution = new Solution();
+        return pool == null ? solution.largestIsland(grid) : solution.largestIsland(grid, pool);
+    }
+}
@@ -1,146 +1,219 @@
 package problems.makelargeisland;
 
-import java.util.*;
+import problems.unionfind.ConcurrentUnionFind;
+import problems.unionfind.UnionFind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
 
 public class Solution {
     private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {-1, 0}, {0, -1}};
+    // More stripes than threads, so a thread done early picks up another stripe
+    private static final int STRIPES_PER_THREAD = 4;
+    private static final int COUNT_CACHE_BITS = 8;
 
     public int largestIsland(int[][] grid) {
         final int n = grid.length;
+        // Cell (row, col) is id row * n + col, water cells stay on their own
+        UnionFind land = new UnionFind(n * n);
         int maxIsland = 0;
-        DisjointSet land = new DisjointSet(n);
-        Queue<Point> candidates = new LinkedList<>();
         for (int row = 0; row < n; row++) {
             for (int col = 0; col < n; col++) {
-                Point p = new Point(row, col);
-                if (grid[row][col] == 1) {
-                    int currIsland = land.add(p);
-                    maxIsland = Math.max(currIsland, maxIsland);
-                } else {
-                    candidates.offer(p);
+                if (grid[row][col] == 0) {
+                    continue;
+                }
+
+                // Cells above and to the left are joined already
+                int cell = row * n + col;
+                if (row > 0 && grid[row - 1][col] == 1) {
+                    land.union(cell, cell - n);
+                }
+                if (col > 0 && grid[row][col - 1] == 1) {
+                    land.union(cell, cell - 1);
                 }
+                maxIsland = Math.max(land.size(cell), maxIsland);
             }
         }
 
-        while (!candidates.isEmpty()) {
-            int newSize = land.evaluateAdd(candidates.poll());
-            maxIsland = Math.max(newSize, maxIsland);
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] == 0) {
+                    maxIsland = Math.max(evaluateAdd(grid, land, row, col), maxIsland);
+                }
+            }
         }
 
         return maxIsland;
     }
 
-    private static class DisjointSet {
-        final Map<Point, Point> roots = new HashMap<>();
-        final Map<Point, Integer> ranks = new HashMap<>();
-        final int n;
+    /**
+     * Same as {@link #largestIsland(int[][])}, computed on the threads of {@code pool}.
+     * The grid is cut in stripes of rows, each stripe is joined on its own, then every stripe's
+     * first row with the row above it. Island sizes are counted and water cells evaluated
+     * stripe by stripe afterwards, once the union-find no longer changes.
+     */
+    public int largestIsland(int[][] grid, ForkJoinPool pool) {
+        final int n = grid.length;
+        ConcurrentUnionFind land = new ConcurrentUnionFind(n * n);
+        int stripeRows = Math.max(1, n / (pool.getParallelism() * STRIPES_PER_THREAD));
+        int stripes = (n + stripeRows - 1) / stripeRows;
+
+        // The first row of a stripe is joined to the previous stripe later
+        inParallel(pool, stripes, stripe -> {
+            int fromRow = stripe * stripeRows;
+            int toRow = Math.min(n, fromRow + stripeRows);
+            for (int row = fromRow; row < toRow; row++) {
+                for (int col = 0; col < n; col++) {
+                    if (grid[row][col] == 0) {
+                        continue;
+                    }
+                    int cell = row * n + col;
+                    if (row > fromRow && grid[row - 1][col] == 1) {
+                        land.union(cell, cell - n);
+                    }
+                    if (col > 0 && grid[row][col - 1] == 1) {
+                        land.union(cell, cell - 1);
+                    }
+                }
+            }
+        });
+        inParallel(pool, stripes - 1, border -> {
+            int row = (border + 1) * stripeRows;
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] == 1 && grid[row - 1][col] == 1) {
+                    land.union(row * n + col, (row - 1) * n + col);
+                }
+            }
+        });
+
+        AtomicIntegerArray sizes = new AtomicIntegerArray(n * n);
+        inParallel(pool, stripes, stripe -> countIslands(grid, land, sizes,
+                stripe * stripeRows, Math.min(n, (stripe + 1) * stripeRows)));
+
+        int[] maxIslands = new int[stripes];
+        inParallel(pool, stripes, stripe -> {
+            int maxIsland = 0;
+            int fromRow = stripe * stripeRows;
+            int toRow = Math.min(n, fromRow + stripeRows);
+            for (int row = fromRow; row < toRow; row++) {
+                for (int col = 0; col < n; col++) {
+                    int cell = row * n + col;
+                    if (grid[row][col] == 0) {
+                        maxIsland = Math.max(evaluateAdd(grid, land, sizes, row, col), maxIsland);
+                    } else if (land.find(cell) == cell) {
+                        maxIsland = Math.max(sizes.get(cell), maxIsland);
+                    }
+                }
+            }
+            maxIslands[stripe] = maxIsland;
+        });
 
-        private DisjointSet(int n) {
-            this.n = n;
-        }
+        return Arrays.stream(maxIslands).max().orElse(0);
+    }
 
-        public Point find(Point p) {
-            Point found = roots.get(p);
-            if (found == null || found.equals(p)) {
-                return found;
+    // Size of the island that turning the water cell into land would make
+    private int evaluateAdd(int[][] grid, UnionFind land, int row, int col) {
+        final int n = grid.length;
+        int[] seenIslands = new int[DIRECTIONS.length];
+        int seenCount = 0;
+        int newSize = 1;
+
+        for (int[] d : DIRECTIONS) {
+            int adjRow = row + d[0];
+            int adjCol = col + d[1];
+            if (adjRow < 0 || adjCol < 0 || adjRow >= n || adjCol >= n || grid[adjRow][adjCol] == 0) {
+                continue;
             }
 
-            roots.put(p, find(roots.get(p)));
-            return roots.get(p);
+            int adjRoot = land.find(adjRow * n + adjCol);
+            if (!contains(seenIslands, seenCount, adjRoot)) {
+                seenIslands[seenCount++] = adjRoot;
+                newSize += land.size(adjRoot);
+            }
         }
 
-        public int evaluateAdd(Point p) {
-            Set<Point> seenIslands = new HashSet<>();
-            int newSize = 1;
-
-            for (int[] d: DIRECTIONS) {
-                int row = p.row + d[0];
-                int col = p.col + d[1];
-                if (row < 0 || col < 0 || row >= n || col >= n) {
-                    continue;
-                }
-
-                Point adj = new Point(row, col);
-                Point adjRoot = find(adj);
-                if (adjRoot == null || !seenIslands.add(adjRoot)) {
-                    continue;
-                }
+        return newSize;
+    }
 
-                newSize += ranks.get(adjRoot);
+    private int evaluateAdd(int[][] grid, ConcurrentUnionFind land, AtomicIntegerArray sizes, int row, int col) {
+        final int n = grid.length;
+        int[] seenIslands = new int[DIRECTIONS.length];
+        int seenCount = 0;
+        int newSize = 1;
+
+        for (int[] d : DIRECTIONS) {
+            int adjRow = row + d[0];
+            int adjCol = col + d[1];
+            if (adjRow < 0 || adjCol < 0 || adjRow >= n || adjCol >= n || grid[adjRow][adjCol] == 0) {
+                continue;
             }
 
-            return newSize;
+            int adjRoot = land.find(adjRow * n + adjCol);
+            if (!contains(seenIslands, seenCount, adjRoot)) {
+                seenIslands[seenCount++] = adjRoot;
+                newSize += sizes.get(adjRoot);
+            }
         }
 
-        public int add(Point p) {
-            roots.put(p, p);
-            ranks.put(p, 1);
+        return newSize;
+    }
 
-            int maxRank = 1;
-            for (int[] d: DIRECTIONS) {
-                int row = p.row + d[0];
-                int col = p.col + d[1];
-                if (row < 0 || col < 0 || row >= n || col >= n) {
+    // Adds the land cells of the rows to the sizes of their islands. An island spanning the grid
+    // would have every thread adding to the same counter, so counts are first gathered in a small
+    // direct-mapped cache of roots and added when a root is evicted
+    private static void countIslands(int[][] grid, ConcurrentUnionFind land, AtomicIntegerArray sizes,
+                                     int fromRow, int toRow) {
+        final int n = grid.length;
+        int[] cachedRoots = new int[1 << COUNT_CACHE_BITS];
+        int[] cachedCounts = new int[1 << COUNT_CACHE_BITS];
+        Arrays.fill(cachedRoots, -1);
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < n; col++) {
+                if (grid[row][col] == 0) {
                     continue;
                 }
-
-                Point p2 = new Point(row, col);
-                if (find(p2) == null) {
-                    continue;
+                int root = land.find(row * n + col);
+                int slot = (root * 0x9E3779B9) >>> (Integer.SIZE - COUNT_CACHE_BITS);
+                if (cachedRoots[slot] != root) {
+                    if (cachedRoots[slot] >= 0) {
+                        sizes.addAndGet(cachedRoots[slot], cachedCounts[slot]);
+                    }
+                    cachedRoots[slot] = root;
+                    cachedCounts[slot] = 0;
                 }
-
-                int currRank = union(p, p2);
-                maxRank = Math.max(currRank, maxRank);
+                cachedCounts[slot]++;
             }
-
-            return maxRank;
         }
-
-        private int union(Point x, Point y) {
-            Point rootX = find(x);
-            Point rootY = find(y);
-
-            if (rootX.equals(rootY)) {
-                return ranks.get(rootX);
-            }
-
-            int rankX = ranks.get(rootX);
-            int rankY = ranks.get(rootY);
-            int totalRank = rankX + rankY;
-            if (rankX >= rankY) {
-                roots.put(rootY, rootX);
-                ranks.put(rootX, totalRank);
-            } else {
-                roots.put(rootX, rootY);
-                ranks.put(rootY, totalRank);
+        for (int slot = 0; slot < cachedRoots.length; slot++) {
+            if (cachedRoots[slot] >= 0) {
+                sizes.addAndGet(cachedRoots[slot], cachedCounts[slot]);
             }
-
-            return totalRank;
         }
-
     }
 
-    private static final class Point {
-        final int row;
-        final int col;
-
-        private Point(int row, int col) {
-            this.row = row;
-            this.col = col;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof Point)) return false;
-            Point other = (Point) o;
-            return this.row == other.row && this.col == other.col;
+    // Runs task(0) to task(count - 1) on the pool and waits for all of them
+    private static void inParallel(ForkJoinPool pool, int count, IntConsumer task) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(pool.submit(() -> task.accept(index)));
         }
+        tasks.forEach(ForkJoinTask::join);
+    }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(row, col);
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
         }
+        return false;
     }
 
     public static void main(String[] args) {
@@ -150,5 +223,27 @@ public class Solution {
                 {0, 1}
         };
         assert solution.largestIsland(map) == 3;
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int n = 1 + random.nextInt(200);
+            double landShare = random.nextDouble();
+            int[][] grid = new int[n][n];
+            for (int[] row : grid) {
+                for (int col = 0; col < n; col++) {
+                    row[col] = random.nextDouble() < landShare ? 1 : 0;
+                }
+            }
+            int expected = solution.largestIsland(grid);
+            int parallel = solution.largestIsland(grid, pool);
+            if (parallel != expected) {
+                System.out.println("Parallel answer " + parallel + ", expected " + expected + " on a " + n + "x" + n + " grid");
+                pool.shutdown();
+                return;
+            }
+        }
+        pool.shutdown();
+        System.out.println("Parallel answers match sequential");
     }
 }
@@ -0,0 +1,49 @@
+package problems.mincost;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Solution#minCostConnectPointsManhattan(int[][])} on {@code pointCount} random points
+ * with coordinates within 10^6. The all pairs engines don't fit in memory past a few 10^4 points,
+ * see {@code UnionFindBenchmark} for Kruskal over all pairs at 1000.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class MinCostBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    int pointCount;
+
+    int[][] points;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        points = new int[pointCount][];
+        for (int i = 0; i < pointCount; i++) {
+            points[i] = new int[]{random.nextInt(2_000_001) - 1_000_000, random.nextInt(2_000_001) - 1_000_000};
+        }
+    }
+
+    @Benchmark
+    public long manhattan() {
+        return new Solution().minCostConnectPointsManhattan(points);
+    }
+}
@@ -0,0 +1,59 @@
+package problems.mincost;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where dense Prim stops beating the Manhattan sweeps, which sets the threshold
+ * {@link Solution#minCostConnectPointsAuto(int[][])} switches at. Same random points as
+ * {@link MinCostBenchmark}, over the range of {@code pointCount} where the two cross.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MinCostCrossoverBenchmark {
+    @Param({"50", "100", "200", "500", "1000", "2000", "5000"})
+    int pointCount;
+
+    int[][] points;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        points = new int[pointCount][];
+        for (int i = 0; i < pointCount; i++) {
+            points[i] = new int[]{random.nextInt(2_000_001) - 1_000_000, random.nextInt(2_000_001) - 1_000_000};
+        }
+    }
+
+    @Benchmark
+    public long dense() {
+        return new Solution().minCostConnectPointsDense(points);
+    }
+
+    @Benchmark
+    public long manhattan() {
+        return new Solution().minCostConnectPointsManhattan(points);
+    }
+
+    @Benchmark
+    public long prim() {
+        return new Solution().minCostConnectPointsPrim(points);
+    }
+}
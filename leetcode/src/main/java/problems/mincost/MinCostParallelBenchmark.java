@@ -0,0 +1,69 @@
+package problems.mincost;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Solution#minCostConnectPointsBoruvka(int[][], ForkJoinPool)} as the pool grows, {@code parallelism} 0
+ * being the sequential {@link Solution#minCostConnectPointsManhattan(int[][])} over the same candidate edges.
+ * Where Boruvka starts to pay off should set the point count {@link Solution#minCostConnectPointsAuto(int[][])}
+ * switches to it at, given more than one CPU. Only run on one CPU so far, which can't show that point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class MinCostParallelBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int pointCount;
+
+    @Param({"0", "1", "2", "4", "8"})
+    int parallelism;
+
+    int[][] points;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        points = new int[pointCount][];
+        for (int i = 0; i < pointCount; i++) {
+            points[i] = new int[]{random.nextInt(2_000_001) - 1_000_000, random.nextInt(2_000_001) - 1_000_000};
+        }
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long minCost() {
+        Solution solution = new Solution();
+        return pool == null
+                ? solution.minCostConnectPointsManhattan(points)
+                : solution.minCostConnectPointsBoruvka(points, pool);
+    }
+}
@@ -1,114 +1,384 @@
 package problems.mincost;
 
 import org.apache.commons.lang3.tuple.Pair;
+import problems.heap.IndexedMinHeap;
+import problems.unionfind.ConcurrentUnionFind;
+import problems.unionfind.UnionFind;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
 
 public class Solution {
+    // Manhattan candidate edges are packed as weight << 2 * ID_BITS | a << ID_BITS | b,
+    // so sorting the longs orders them by weight
+    private static final int ID_BITS = 20;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    // Below this many points dense Prim beats the Manhattan sweeps, see MinCostCrossoverBenchmark
+    private static final int DENSE_MAX_POINTS = 300;
+    // Coordinates, mirrored or not, are within (-COORD_BIAS, COORD_BIAS), so biased they take 21 bits.
+    // That covers 10^6 either way
+    private static final int COORD_BITS = 21;
+    private static final int COORD_BIAS = 1 << 20;
+    // From this many points parallel Boruvka takes over given more than one CPU. Unmeasured: on one CPU
+    // MinCostParallelBenchmark shows its overhead only, one thread costs about what the Manhattan
+    // sweeps do up to 10^5 points. The crossover wants measuring on a multi-core machine
+    private static final int PARALLEL_MIN_POINTS = 100_000;
+    // More edge chunks than threads, so a thread done early picks up another chunk
+    private static final int CHUNKS_PER_THREAD = 4;
+
     public int minCostConnectPoints(int[][] points) {
-        DisjointSet disjointSet = new DisjointSet();
+        UnionFind unionFind = new UnionFind(points.length);
         PriorityQueue<Pair<Point, Point>> minEdges = new PriorityQueue<>(
                 (edgeA, edgeB) -> weight(edgeA) - weight(edgeB)
         );
 
         for (int i = 0; i < points.length; i++) {
-            Point a = new Point(points[i][0], points[i][1]);
-            disjointSet.add(a);
+            Point a = new Point(i, points[i][0], points[i][1]);
             for (int j = i + 1; j < points.length; j++) {
-                Point b = new Point(points[j][0], points[j][1]);
+                Point b = new Point(j, points[j][0], points[j][1]);
                 minEdges.offer(Pair.of(a, b));
             }
         }
 
         int minCost = 0;
-        while (disjointSet.componentsCount() > 1) {
+        while (unionFind.componentCount() > 1) {
             Pair<Point, Point> currEdge = minEdges.poll();
-            if (disjointSet.union(currEdge)) {
+            if (unionFind.union(currEdge.getKey().id, currEdge.getValue().id)) {
                 minCost += weight(currEdge);
             }
         }
         return minCost;
     }
 
-    private int weight(Pair<Point, Point> edge) {
-        Point a = edge.getKey();
-        Point b = edge.getValue();
-        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+    // Prim over the complete graph: O(E log V) with an indexed heap holding one entry per point,
+    // keyed by the cheapest known edge into the tree
+    public int minCostConnectPointsPrim(int[][] points) {
+        if (points.length == 0) {
+            return 0;
+        }
+        IndexedMinHeap minEdges = new IndexedMinHeap(points.length);
+        boolean[] inTree = new boolean[points.length];
+        minEdges.add(0, 0);
+
+        int minCost = 0;
+        while (!minEdges.isEmpty()) {
+            int cost = minEdges.peekKey();
+            int curr = minEdges.pop();
+            inTree[curr] = true;
+            minCost += cost;
+
+            for (int next = 0; next < points.length; next++) {
+                if (!inTree[next]) {
+                    minEdges.addOrDecreaseKey(next, distance(points[curr], points[next]));
+                }
+            }
+        }
+        return minCost;
     }
 
-    private static class DisjointSet {
-        final Map<Point, Point> root = new HashMap<>();
-        final Map<Point, Integer> rank = new HashMap<>();
-        int componentsCount = 0;
+    // Picks the fastest engine for the number of points and the CPUs to run on
+    public long minCostConnectPointsAuto(int[][] points) {
+        if (points.length <= DENSE_MAX_POINTS) {
+            return minCostConnectPointsDense(points);
+        }
+        // Too many points or too far out for the packed edges of the faster engines
+        if (!packable(points)) {
+            return minCostConnectPoints(points);
+        }
+        if (points.length >= PARALLEL_MIN_POINTS && Runtime.getRuntime().availableProcessors() > 1) {
+            return minCostConnectPointsBoruvka(points, ForkJoinPool.commonPool());
+        }
+        return minCostConnectPointsManhattan(points);
+    }
 
-        public int componentsCount() {
-            return componentsCount;
+    // Prim without a heap or any edges: every round scans the points left for the one closest
+    // to the tree, O(n^2) time over a few int arrays. Points joining the tree are swapped out
+    // of the prefix left to scan
+    public long minCostConnectPointsDense(int[][] points) {
+        int remaining = points.length;
+        if (remaining == 0) {
+            return 0;
+        }
+        int[] xs = new int[remaining];
+        int[] ys = new int[remaining];
+        int[] minDist = new int[remaining];
+        for (int i = 0; i < remaining; i++) {
+            xs[i] = points[i][0];
+            ys[i] = points[i][1];
         }
+        Arrays.fill(minDist, Integer.MAX_VALUE);
 
-        public void add(Point x) {
-            if (root.containsKey(x)) return;
-            root.put(x, x);
-            rank.put(x, 1);
-            componentsCount++;
+        int currX = xs[0];
+        int currY = ys[0];
+        remaining--;
+        xs[0] = xs[remaining];
+        ys[0] = ys[remaining];
+        long minCost = 0;
+        while (remaining > 0) {
+            int closest = 0;
+            for (int i = 0; i < remaining; i++) {
+                int dist = Math.abs(xs[i] - currX) + Math.abs(ys[i] - currY);
+                if (dist < minDist[i]) {
+                    minDist[i] = dist;
+                }
+                if (minDist[i] < minDist[closest]) {
+                    closest = i;
+                }
+            }
+
+            minCost += minDist[closest];
+            currX = xs[closest];
+            currY = ys[closest];
+            remaining--;
+            xs[closest] = xs[remaining];
+            ys[closest] = ys[remaining];
+            minDist[closest] = minDist[remaining];
         }
+        return minCost;
+    }
 
-        public Point find(Point x) {
-            if (x.equals(root.get(x))) {
-                return x;
+    /**
+     * Kruskal over at most 4n candidate edges instead of all n^2 pairs. Split the plane around a point
+     * into eight octants, then in each octant only the nearest point can be its MST neighbour.
+     * A sweep finds, for every point, the nearest one with {@code x' >= x} and {@code y' - x' >= y - x}:
+     * points come by decreasing x, and a Fenwick tree keyed by {@code y - x} holds the least
+     * {@code x + y} seen so far. The points are swapped or mirrored between sweeps so that four
+     * sweeps cover four octants, an edge found from one end covers the opposite octant at the other.
+     * <p>
+     * O(n log n) time and O(n) memory. Past around 10^5 points the cost no longer fits an int.
+     * Takes at most 2^20 points with coordinates within (-2^20, 2^20), the sizes packed edges
+     * have room for, and throws IllegalArgumentException past them.
+     */
+    public long minCostConnectPointsManhattan(int[][] points) {
+        checkPackable(points);
+        final int n = points.length;
+        long[] edges = new long[4 * n];
+        int edgeCount = 0;
+        for (int sweep = 0; sweep < 4; sweep++) {
+            edgeCount += sweep(points, sweep, edges, edgeCount);
+        }
+
+        Arrays.sort(edges, 0, edgeCount);
+        UnionFind unionFind = new UnionFind(n);
+        long minCost = 0;
+        for (int e = 0; e < edgeCount && unionFind.componentCount() > 1; e++) {
+            if (unionFind.union((int) (edges[e] >>> ID_BITS & ID_MASK), (int) (edges[e] & ID_MASK))) {
+                minCost += edges[e] >>> 2 * ID_BITS;
             }
+        }
+        return minCost;
+    }
+
+    /**
+     * Boruvka over the same candidate edges as {@link #minCostConnectPointsManhattan(int[][])},
+     * computed on the threads of {@code pool}. The four sweeps run at once. Then every round each
+     * component picks its cheapest edge out, kept as a CAS min per component root while chunks
+     * of the edges are scanned in parallel, and all picked edges are joined in a
+     * {@link ConcurrentUnionFind}, which at least halves the components. Equal weights are told
+     * apart by edge position, so the picked edges never close a cycle. Edges found inside one
+     * component are dropped from their chunk as it is scanned.
+     * <p>
+     * Packs edges the same way, so it takes the same points and throws IllegalArgumentException past them.
+     */
+    public long minCostConnectPointsBoruvka(int[][] points, ForkJoinPool pool) {
+        checkPackable(points);
+        final int n = points.length;
+        long[] edges = new long[4 * n];
+        int[] sweepEdges = new int[4];
+        inParallel(pool, 4, sweep -> sweepEdges[sweep] = sweep(points, sweep, edges, sweep * n));
+        int edgeCount = 0;
+        for (int sweep = 0; sweep < 4; sweep++) {
+            System.arraycopy(edges, sweep * n, edges, edgeCount, sweepEdges[sweep]);
+            edgeCount += sweepEdges[sweep];
+        }
 
-            root.put(x, find(root.get(x)));
-            return root.get(x);
+        int chunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+        int edgeChunk = Math.max(1, (edgeCount + chunks - 1) / chunks);
+        int edgeChunks = (edgeCount + edgeChunk - 1) / edgeChunk;
+        int[] liveEdges = new int[edgeChunks];
+        for (int chunk = 0; chunk < edgeChunks; chunk++) {
+            liveEdges[chunk] = Math.min(edgeChunk, edgeCount - chunk * edgeChunk);
         }
+        int pointChunk = Math.max(1, (n + chunks - 1) / chunks);
+        int pointChunks = (n + pointChunk - 1) / pointChunk;
+        long[] chunkCosts = new long[pointChunks];
+
+        ConcurrentUnionFind components = new ConcurrentUnionFind(n);
+        // Per component root, weight << 32 | position of its cheapest edge out
+        AtomicLongArray cheapest = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            cheapest.setPlain(i, Long.MAX_VALUE);
+        }
+        while (components.componentCount() > 1) {
+            // No unions while edges are scanned, so the roots hold still
+            inParallel(pool, edgeChunks, chunk -> {
+                int from = chunk * edgeChunk;
+                int live = from;
+                for (int e = from; e < from + liveEdges[chunk]; e++) {
+                    long edge = edges[e];
+                    int rootA = components.find((int) (edge >>> ID_BITS & ID_MASK));
+                    int rootB = components.find((int) (edge & ID_MASK));
+                    if (rootA == rootB) {
+                        continue;
+                    }
+                    edges[live] = edge;
+                    long key = edge >>> 2 * ID_BITS << 32 | live;
+                    lowerTo(cheapest, rootA, key);
+                    lowerTo(cheapest, rootB, key);
+                    live++;
+                }
+                liveEdges[chunk] = live - from;
+            });
+
+            // Both ends may pick the same edge, the second union finds them joined
+            inParallel(pool, pointChunks, chunk -> {
+                long cost = 0;
+                for (int i = chunk * pointChunk; i < Math.min(n, (chunk + 1) * pointChunk); i++) {
+                    long key = cheapest.get(i);
+                    if (key == Long.MAX_VALUE) {
+                        continue;
+                    }
+                    cheapest.set(i, Long.MAX_VALUE);
+                    long edge = edges[(int) key];
+                    if (components.union((int) (edge >>> ID_BITS & ID_MASK), (int) (edge & ID_MASK))) {
+                        cost += key >>> 32;
+                    }
+                }
+                chunkCosts[chunk] += cost;
+            });
+        }
+        return Arrays.stream(chunkCosts).sum();
+    }
 
-        public boolean union(Pair<Point, Point> edge) {
-            return union(edge.getKey(), edge.getValue());
+    // Candidate edges of one of the four sweeps, written to edges from the given index on, returns
+    // how many. Sweep k looks at the points as (x, y), (y, x), (-y, x) and (x, -y) respectively
+    private static int sweep(int[][] points, int sweep, long[] edges, int from) {
+        final int n = points.length;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            int x = points[i][0];
+            int y = points[i][1];
+            xs[i] = sweep == 0 || sweep == 3 ? x : sweep == 1 ? y : -y;
+            ys[i] = sweep == 0 ? y : sweep == 3 ? -y : x;
         }
 
-        public boolean union(Point x, Point y) {
-            Point rootX = find(x);
-            Point rootY = find(y);
-            if (rootX.equals(rootY)) {
+        long[] sweepOrder = new long[n];
+        int[] diagonals = new int[n];
+        // By x then y, so equal x comes by decreasing y when swept from the end
+        for (int i = 0; i < n; i++) {
+            sweepOrder[i] = (long) (xs[i] + COORD_BIAS) << COORD_BITS + ID_BITS
+                    | (long) (ys[i] + COORD_BIAS) << ID_BITS | i;
+            diagonals[i] = ys[i] - xs[i];
+        }
+        Arrays.sort(sweepOrder);
+        int diagonalCount = sortDistinct(diagonals);
+
+        // Packed as (x + y) << 32 | id, so the min is the nearest point
+        long[] nearest = new long[diagonalCount + 1];
+        Arrays.fill(nearest, Long.MAX_VALUE);
+        int edgeCount = from;
+        for (int k = n - 1; k >= 0; k--) {
+            int i = (int) (sweepOrder[k] & ID_MASK);
+            // Tree slots in reverse, so a prefix holds the diagonals at or above the point's
+            int slot = diagonalCount - Arrays.binarySearch(diagonals, 0, diagonalCount, ys[i] - xs[i]);
+            long found = Long.MAX_VALUE;
+            for (int s = slot; s > 0; s -= s & -s) {
+                found = Math.min(nearest[s], found);
+            }
+            if (found != Long.MAX_VALUE) {
+                long weight = (found >> 32) - (xs[i] + ys[i]);
+                edges[edgeCount++] = weight << 2 * ID_BITS | (long) i << ID_BITS | (int) found;
+            }
+
+            long entry = (long) (xs[i] + ys[i]) << 32 | i;
+            for (int s = slot; s <= diagonalCount; s += s & -s) {
+                nearest[s] = Math.min(nearest[s], entry);
+            }
+        }
+        return edgeCount - from;
+    }
+
+    // Lowers the value at i to key unless it is lower already
+    private static void lowerTo(AtomicLongArray values, int i, long key) {
+        long current = values.get(i);
+        while (key < current && !values.compareAndSet(i, current, key)) {
+            current = values.get(i);
+        }
+    }
+
+    // Runs task(0) to task(count - 1) on the pool and waits for all of them
+    private static void inParallel(ForkJoinPool pool, int count, IntConsumer task) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(pool.submit(() -> task.accept(index)));
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    // Whether point ids fit ID_BITS and coordinates, mirrored or not, fit COORD_BITS once biased
+    private static boolean packable(int[][] points) {
+        if (points.length > 1 << ID_BITS) {
+            return false;
+        }
+        for (int[] point : points) {
+            if (point[0] <= -COORD_BIAS || point[0] >= COORD_BIAS
+                    || point[1] <= -COORD_BIAS || point[1] >= COORD_BIAS) {
                 return false;
             }
+        }
+        return true;
+    }
+
+    private static void checkPackable(int[][] points) {
+        if (!packable(points)) {
+            throw new IllegalArgumentException(String.format(
+                    "Packed edges take at most %d points with coordinates within (-%d, %d), got %d points",
+                    1 << ID_BITS, COORD_BIAS, COORD_BIAS, points.length));
+        }
+    }
 
-            int totalRank = rank.get(rootX) + rank.get(rootY);
-            if (rank.get(rootX) > rank.get(rootY)) {
-                root.put(rootY, rootX);
-                rank.put(rootX, totalRank);
-            } else {
-                root.put(rootX, rootY);
-                rank.put(rootY, totalRank);
+    // Sorts the values and moves the distinct ones to the front, returns their count
+    private static int sortDistinct(int[] values) {
+        Arrays.sort(values);
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (count == 0 || values[i] != values[count - 1]) {
+                values[count++] = values[i];
             }
-            componentsCount--;
-            return true;
         }
+        return count;
+    }
+
+    private static int distance(int[] a, int[] b) {
+        return Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]);
+    }
+
+    private int weight(Pair<Point, Point> edge) {
+        Point a = edge.getKey();
+        Point b = edge.getValue();
+        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
     }
 
     private static class Point {
+        // Index into points, the union-find works over these
+        final int id;
         final int x;
         final int y;
 
-        public Point(int x, int y) {
+        public Point(int id, int x, int y) {
+            this.id = id;
             this.x = x;
             this.y = y;
         }
-
-        @Override
-        public boolean equals(Object o) {
-            if (o == null) return false;
-            if (!(o instanceof Point)) return false;
-            Point other = (Point) o;
-            return this.x == other.x && this.y == other.y;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(x, y);
-        }
     }
 
     public static void main(String[] args) {
@@ -124,5 +394,103 @@ public class Solution {
                 {-4,-8}
         };
         System.out.println(solution.minCostConnectPoints(points));
+        System.out.println(solution.minCostConnectPointsPrim(points));
+        System.out.println(solution.minCostConnectPointsManhattan(points));
+        System.out.println(solution.minCostConnectPointsDense(points));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        System.out.println(solution.minCostConnectPointsBoruvka(points, pool));
+
+        // Small coordinate ranges give duplicate points and ties on every axis
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int range = 1 + random.nextInt(i % 2 == 0 ? 10 : 2_000_000);
+            int[][] randomPoints = new int[1 + random.nextInt(300)][];
+            for (int j = 0; j < randomPoints.length; j++) {
+                randomPoints[j] = new int[]{random.nextInt(range) - range / 2, random.nextInt(range) - range / 2};
+            }
+            int expected = solution.minCostConnectPoints(randomPoints);
+            long manhattan = solution.minCostConnectPointsManhattan(randomPoints);
+            if (manhattan != expected) {
+                System.out.println("Manhattan MST cost " + manhattan + ", expected " + expected);
+                pool.shutdown();
+                return;
+            }
+            int prim = solution.minCostConnectPointsPrim(randomPoints);
+            if (prim != expected) {
+                System.out.println("Prim cost " + prim + ", expected " + expected);
+                pool.shutdown();
+                return;
+            }
+            long dense = solution.minCostConnectPointsDense(randomPoints);
+            if (dense != expected) {
+                System.out.println("Dense Prim cost " + dense + ", expected " + expected);
+                pool.shutdown();
+                return;
+            }
+            long boruvka = solution.minCostConnectPointsBoruvka(randomPoints, pool);
+            if (boruvka != expected) {
+                System.out.println("Boruvka cost " + boruvka + ", expected " + expected);
+                pool.shutdown();
+                return;
+            }
+        }
+        for (int[][] edgeCase : new int[][][]{{}, {{5, -5}}}) {
+            if (solution.minCostConnectPointsPrim(edgeCase) != 0 || solution.minCostConnectPoints(edgeCase) != 0
+                    || solution.minCostConnectPointsBoruvka(edgeCase, pool) != 0) {
+                System.out.println("Nonzero cost for " + edgeCase.length + " points");
+                pool.shutdown();
+                return;
+            }
+        }
+
+        // Past the all pairs engines, Boruvka against the sequential sweeps
+        for (int pointCount : new int[]{10_000, 200_000}) {
+            int[][] randomPoints = new int[pointCount][];
+            for (int j = 0; j < pointCount; j++) {
+                randomPoints[j] = new int[]{random.nextInt(2_000_001) - 1_000_000, random.nextInt(2_000_001) - 1_000_000};
+            }
+            long expected = solution.minCostConnectPointsManhattan(randomPoints);
+            long boruvka = solution.minCostConnectPointsBoruvka(randomPoints, pool);
+            if (boruvka != expected) {
+                System.out.println("Boruvka cost " + boruvka + ", expected " + expected + " on " + pointCount + " points");
+                pool.shutdown();
+                return;
+            }
+        }
+        // Ids past 20 bits or coordinates past 21 bits biased would corrupt the packed edges
+        int[][] tooMany = new int[(1 << ID_BITS) + 1][];
+        Arrays.fill(tooMany, new int[]{0, 0});
+        for (int[][] unpackable : new int[][][]{tooMany, {{0, 0}, {COORD_BIAS, 0}}, {{0, 0}, {0, -COORD_BIAS}}}) {
+            try {
+                solution.minCostConnectPointsManhattan(unpackable);
+                System.out.println("Manhattan MST took " + unpackable.length + " unpackable points");
+                pool.shutdown();
+                return;
+            } catch (IllegalArgumentException e) {
+                // Refused as it should be
+            }
+        }
+        for (int[][] unpackable : new int[][][]{tooMany, {{0, 0}, {COORD_BIAS, 0}}, {{0, 0}, {0, -COORD_BIAS}}}) {
+            try {
+                solution.minCostConnectPointsBoruvka(unpackable, pool);
+                System.out.println("Boruvka took " + unpackable.length + " unpackable points");
+                pool.shutdown();
+                return;
+            } catch (IllegalArgumentException e) {
+                // Refused as it should be
+            }
+        }
+        // Past dense Prim's size but too far out to pack, the dispatcher falls back to Kruskal over all pairs
+        int[][] farOut = new int[DENSE_MAX_POINTS + 100][];
+        for (int j = 0; j < farOut.length; j++) {
+            farOut[j] = new int[]{random.nextInt(20_000_001) - 10_000_000, random.nextInt(20_000_001) - 10_000_000};
+        }
+        if (solution.minCostConnectPointsAuto(farOut) != solution.minCostConnectPoints(farOut)) {
+            System.out.println("Dispatcher cost differs from Kruskal on coordinates past the packing");
+            pool.shutdown();
+            return;
+        }
+        pool.shutdown();
+        System.out.println("Prim, Manhattan MST, dense Prim and Boruvka match Kruskal over all pairs");
     }
 }
@@ -0,0 +1,146 @@
+package problems.unionfind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free {@link UnionFind} for many threads at once, in the style of Anderson and Woll:
+ * parents live in an {@link AtomicIntegerArray} and a link is a CAS of a root's parent,
+ * which fails if another thread linked that root first, and the union then retries from the new roots.
+ * <p>
+ * Roots are linked by a fixed pseudo-random priority of their ids rather than by size.
+ * An order that never changes means two concurrent links can't point two roots at each other,
+ * and a random one keeps the trees shallow in expectation. {@link #find(int)} halves paths with CAS,
+ * losing that race only means the path stays longer. Component sizes are not tracked,
+ * keeping them exact under concurrent links would take a lock.
+ */
+public class ConcurrentUnionFind {
+    private final AtomicIntegerArray parents;
+    private final LongAdder unions = new LongAdder();
+
+    public ConcurrentUnionFind(int size) {
+        this.parents = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parents.setPlain(i, i);
+        }
+    }
+
+    // Exact once unions have stopped, a snapshot otherwise
+    public int componentCount() {
+        return (int) (parents.length() - unions.sum());
+    }
+
+    public int find(int x) {
+        while (true) {
+            int parent = parents.get(x);
+            if (parent == x) {
+                return x;
+            }
+            int grandparent = parents.get(parent);
+            if (grandparent != parent) {
+                parents.compareAndSet(x, parent, grandparent);
+            }
+            x = grandparent;
+        }
+    }
+
+    public boolean connected(int x, int y) {
+        while (true) {
+            int rootX = find(x);
+            int rootY = find(y);
+            if (rootX == rootY) {
+                return true;
+            }
+            // Both found as roots, but rootX may have been linked since, then look again
+            if (parents.get(rootX) == rootX) {
+                return false;
+            }
+        }
+    }
+
+    // Returns false when x and y were connected already
+    public boolean union(int x, int y) {
+        while (true) {
+            int rootX = find(x);
+            int rootY = find(y);
+            if (rootX == rootY) {
+                return false;
+            }
+
+            if (priority(rootX) > priority(rootY)) {
+                int tmp = rootX;
+                rootX = rootY;
+                rootY = tmp;
+            }
+            if (parents.compareAndSet(rootX, rootX, rootY)) {
+                unions.increment();
+                return true;
+            }
+        }
+    }
+
+    // A bijection on ints scrambling the ids, the murmur3 finalizer
+    private static int priority(int id) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = 200_000;
+        int threads = 4;
+        int unionsPerThread = 150_000;
+        ConcurrentUnionFind concurrent = new ConcurrentUnionFind(size);
+        int[][] pairs = new int[threads][];
+
+        // Every thread unions its own random pairs, all over the same ids
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            pairs[t] = new Random(t).ints(2 * unionsPerThread, 0, size).toArray();
+            int[] threadPairs = pairs[t];
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < threadPairs.length; i += 2) {
+                    concurrent.union(threadPairs[i], threadPairs[i + 1]);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        UnionFind expected = new UnionFind(size);
+        for (int[] threadPairs : pairs) {
+            for (int i = 0; i < threadPairs.length; i += 2) {
+                expected.union(threadPairs[i], threadPairs[i + 1]);
+            }
+        }
+        if (concurrent.componentCount() != expected.componentCount()) {
+            System.out.println("Component count " + concurrent.componentCount() + ", expected "
+                    + expected.componentCount());
+            return;
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (concurrent.connected(x, y) != expected.connected(x, y)) {
+                System.out.println("Connectivity mismatch for " + x + ", " + y);
+                return;
+            }
+        }
+
+        System.out.println("Concurrent unions match sequential union-find");
+    }
+}
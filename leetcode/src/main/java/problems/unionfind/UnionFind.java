@@ -0,0 +1,113 @@
+package problems.unionfind;
+
+import java.util.Random;
+
+/**
+ * Union-find over the dense ids [0, size), every id starting as its own component.
+ * Parents and component sizes are plain {@code int[]}s, {@link #find(int)} is iterative with
+ * path halving and {@link #union(int, int)} hangs the smaller component under the larger,
+ * which keeps both at amortized inverse Ackermann cost without any allocation.
+ */
+public class UnionFind {
+    private final int[] parents;
+    // Valid for roots only
+    private final int[] sizes;
+    private int componentCount;
+
+    public UnionFind(int size) {
+        this.parents = new int[size];
+        this.sizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        this.componentCount = size;
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int find(int x) {
+        while (parents[x] != x) {
+            // Point x at its grandparent on the way up, halving the path for the next find
+            parents[x] = parents[parents[x]];
+            x = parents[x];
+        }
+        return x;
+    }
+
+    public boolean connected(int x, int y) {
+        return find(x) == find(y);
+    }
+
+    // Size of the component holding x
+    public int size(int x) {
+        return sizes[find(x)];
+    }
+
+    // Returns false when x and y were connected already
+    public boolean union(int x, int y) {
+        int rootX = find(x);
+        int rootY = find(y);
+        if (rootX == rootY) {
+            return false;
+        }
+
+        if (sizes[rootX] < sizes[rootY]) {
+            int tmp = rootX;
+            rootX = rootY;
+            rootY = tmp;
+        }
+        parents[rootY] = rootX;
+        sizes[rootX] += sizes[rootY];
+        componentCount--;
+        return true;
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        int size = 2_000;
+        UnionFind unionFind = new UnionFind(size);
+        // Component label per id, relabelled by brute force on every union
+        int[] labels = new int[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = i;
+        }
+        int expectedComponents = size;
+
+        for (int i = 0; i < 5_000; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            boolean merged = labels[x] != labels[y];
+            if (unionFind.union(x, y) != merged) {
+                System.out.println("Union result mismatch for " + x + ", " + y);
+                return;
+            }
+            if (merged) {
+                int from = labels[y];
+                for (int j = 0; j < size; j++) {
+                    if (labels[j] == from) {
+                        labels[j] = labels[x];
+                    }
+                }
+                expectedComponents--;
+            }
+
+            int z = random.nextInt(size);
+            int expectedSize = 0;
+            for (int label : labels) {
+                if (label == labels[z]) {
+                    expectedSize++;
+                }
+            }
+            if (unionFind.connected(x, z) != (labels[x] == labels[z]) || unionFind.size(z) != expectedSize
+                    || unionFind.componentCount() != expectedComponents) {
+                System.out.println("Mismatch after union of " + x + ", " + y);
+                return;
+            }
+        }
+
+        System.out.println("Union-find matches brute force labelling");
+    }
+}
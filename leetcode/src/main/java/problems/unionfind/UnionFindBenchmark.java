@@ -0,0 +1,73 @@
+package problems.unionfind;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The union-find based solutions end to end: {@code makelargeisland} on a random
+ * {@code gridSize} x {@code gridSize} grid with the given share of land, and Kruskal in
+ * {@code mincost} over the complete graph of {@code pointCount} random points.
+ * <p>
+ * Only the current solutions are measured. To compare with the HashMap based DisjointSets
+ * they replaced, copy this class onto the commit before {@link UnionFind} came in and run it there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class UnionFindBenchmark {
+    @Param({"1000"})
+    int gridSize;
+
+    // Around 0.6 the land percolates into one island spanning the grid
+    @Param({"0.3", "0.6"})
+    String landShare;
+
+    @Param({"1000"})
+    int pointCount;
+
+    int[][] grid;
+    int[][] points;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        double land = Double.parseDouble(landShare);
+        grid = new int[gridSize][gridSize];
+        for (int[] row : grid) {
+            for (int col = 0; col < row.length; col++) {
+                row[col] = random.nextDouble() < land ? 1 : 0;
+            }
+        }
+
+        points = new int[pointCount][];
+        for (int i = 0; i < pointCount; i++) {
+            points[i] = new int[]{random.nextInt(2_000_001) - 1_000_000, random.nextInt(2_000_001) - 1_000_000};
+        }
+    }
+
+    @Benchmark
+    public int largestIsland() {
+        return new problems.makelargeisland.Solution().largestIsland(grid);
+    }
+
+    @Benchmark
+    public int minCostKruskal() {
+        return new problems.mincost.Solution().minCostConnectPoints(points);
+    }
+}
@@ -3,4 +3,11 @@ create table if not exists students
     id   BIGINT AUTO_INCREMENT NOT NULL,
     name varchar(64),
     PRIMARY KEY (id)
+);
+
+create table if not exists sequences
+(
+    name       varchar(64) NOT NULL,
+    next_value BIGINT      NOT NULL,
+    PRIMARY KEY (name)
 );
\ No newline at end of file